@@ -0,0 +1,128 @@
+package com.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many threads may hold or wait for a pooled connection at the same time.
+ * <p>
+ * With virtual threads, thousands of requests can reach the connection pool at once. Instead of letting
+ * them all contend inside the pool, callers first take a permit from a fair semaphore sized like the
+ * pool, so excess threads park cheaply in FIFO order and the pool size stays the real concurrency limit.
+ * The permit is released when the connection is closed.
+ * <p>
+ * The guarded pool remains reachable through {@link #unwrap(Class)} and {@link #getTargetDataSource()}.
+ */
+public class ConnectionPermitDataSource extends DelegatingDataSource {
+
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10; // Applied by HikariCP when the pool starts, if unset.
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    /**
+     * @param target        The pooled data source to guard.
+     * @param maxPermits    The number of connections that may be in use at once, usually the pool size.
+     * @param timeoutMillis How long a caller waits for a permit before failing.
+     */
+    public ConnectionPermitDataSource(DataSource target, int maxPermits, long timeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(maxPermits, true); // Fair, so waiting requests are served in arrival order.
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Guards a HikariCP pool with one permit per connection it can open.
+     *
+     * @param pool          The pool, with its settings already bound.
+     * @param timeoutMillis How long a caller waits for a permit before failing.
+     * @return The guarded data source.
+     */
+    public static ConnectionPermitDataSource forPool(HikariDataSource pool, long timeoutMillis) {
+        int poolSize = pool.getMaximumPoolSize() > 0 ? pool.getMaximumPoolSize() : HIKARI_DEFAULT_POOL_SIZE;
+        return new ConnectionPermitDataSource(pool, poolSize, timeoutMillis);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquirePermit();
+        try {
+            return withPermit(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquirePermit();
+        try {
+            return withPermit(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The number of threads currently waiting for a permit.
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    private void acquirePermit() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No database connection permit available within " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection permit", e);
+        }
+    }
+
+    /**
+     * Wraps the connection so that closing it, which returns it to the pool, also releases the permit.
+     */
+    private Connection withPermit(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean(); // Closing twice must not release twice.
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    // Identity is the proxy's own, so a proxy equals itself but not the pooled connection.
+                    if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException(); // Rethrows the original SQLException.
+                    }
+                });
+    }
+}
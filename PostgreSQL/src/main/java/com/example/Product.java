@@ -1,9 +1,12 @@
 package com.example;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 
 /**
  * Represents a Product entity for persistence in a database.
@@ -12,10 +15,20 @@ import jakarta.persistence.Id;
 public class Product {
 
     @Id // Marks 'id' as the primary key of the entity.
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Configures auto-increment for the ID.
+    // A pooled sequence lets Hibernate assign IDs before the INSERT, which makes JDBC batching possible.
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50) // Reserves 50 IDs per sequence call.
     private Long id;
+    @Column(unique = true, length = 64) // Business key used by upstream feeds; optional.
+    private String sku;
     private String name;
     private double price;
+    @Version // Optimistic locking: incremented on every update, which fails if another update came first.
+    private Long version;
+
+    protected Product() {
+        // Required by JPA to instantiate entities loaded from the database.
+    }
 
     public Product(Long id, String name, double price) {
         this.id = id;
@@ -23,6 +36,11 @@ public class Product {
         this.price = price;
     }
 
+    public Product(Long id, String sku, String name, double price) {
+        this(id, name, price);
+        this.sku = sku;
+    }
+
     public Long getId() {
         return id;
     }
@@ -31,6 +49,14 @@ public class Product {
         this.id = id;
     }
 
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
     public String getName() {
         return name;
     }
@@ -46,4 +72,12 @@ public class Product {
     public void setPrice(double price) {
         this.price = price;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
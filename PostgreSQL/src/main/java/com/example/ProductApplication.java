@@ -0,0 +1,21 @@
+package com.example;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@EnableScheduling // Drives the ProductOutboxRelay, ProductOutboxMaintenance and ProductPriceHistoryMaintenance, when enabled.
+// The R2DBC connection factory is only created when the reactive stack is enabled (see ReactivePersistenceConfiguration),
+// and its reactive transaction manager would otherwise replace the JPA one.
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+// The module defaults, under a name of their own so they do not clash with the PubSub module's on a shared classpath.
+// An application.properties, or any other property source, still overrides them.
+@PropertySource("classpath:postgresql.properties")
+public class ProductApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(ProductApplication.class, args);
+    }
+}
\ No newline at end of file
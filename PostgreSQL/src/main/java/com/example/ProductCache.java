@@ -0,0 +1,109 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * In-process read-through cache of products by ID, bounded by size and time-to-live.
+ * <p>
+ * Lookups of missing products are cached too, so repeated misses do not reach the database.
+ * Concurrent lookups of the same uncached ID wait for a single load instead of each querying
+ * the database. The cache holds immutable copies of the loaded products, never the entities themselves, and
+ * hands each caller its own detached {@link Product}: an entity managed by the loading transaction could
+ * otherwise be modified, and seen by other threads, before that transaction commits or rolls back.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, Optional<CachedProduct>> cache;
+
+    public ProductCache(@Value("${product.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize) // Evicts the least valuable entries beyond this size.
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds)) // Bounds staleness from writes made elsewhere.
+                .recordStats() // Enables the hit/miss/eviction counters exposed by stats().
+                .build();
+    }
+
+    /**
+     * Returns the cached product, loading it on a miss.
+     *
+     * @param id     The ID of the product.
+     * @param loader Loads the product from the database; called at most once per concurrent miss.
+     * @return An Optional containing a new detached copy of the product if found, or empty otherwise.
+     */
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        return cache.get(id, key -> loader.apply(key).map(CachedProduct::of)).map(CachedProduct::toProduct);
+    }
+
+    /**
+     * Removes a product from the cache. When called within a transaction, the entry is removed
+     * again after commit, so a concurrent read cannot re-cache the value the transaction replaced.
+     *
+     * @param id The ID of the changed product.
+     */
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+        afterCommit(() -> cache.invalidate(id));
+    }
+
+    /**
+     * Removes all products from the cache, now and after the current transaction commits.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        afterCommit(cache::invalidateAll);
+    }
+
+    /**
+     * @return The hit, miss, load and eviction counters since the cache was created.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return The approximate number of cached entries.
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * The state of a product when it was loaded, detached from any persistence context.
+     */
+    private record CachedProduct(Long id, String sku, String name, double price, Long version) {
+
+        static CachedProduct of(Product product) {
+            return new CachedProduct(product.getId(), product.getSku(), product.getName(), product.getPrice(),
+                    product.getVersion());
+        }
+
+        Product toProduct() {
+            Product product = new Product(id, sku, name, price);
+            product.setVersion(version);
+            return product;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
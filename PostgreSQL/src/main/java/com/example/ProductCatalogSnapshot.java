@@ -0,0 +1,560 @@
+package com.example;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-process, column-oriented copy of the catalog for analytical reads, such as "how many products
+ * cost between X and Y" or "the N cheapest products", asked far too often to go through {@link Product} entities.
+ * <p>
+ * IDs and prices are kept in primitive arrays sorted by price, then ID, and names as codes into a dictionary
+ * of distinct names. The arrays are split into segments of at most {@value #SEGMENT_SIZE} products. Range
+ * counts are binary searches; range scans and top-N queries walk the segments and fill caller-provided arrays
+ * or call a {@link ProductVisitor}, without allocating per result. Segments are never modified once published:
+ * each refresh publishes a new list of them, so readers never lock and always see a consistent snapshot.
+ * <p>
+ * The snapshot is built once from the repository, then kept up to date incrementally from the
+ * {@link ProductChangeFeed}: the IDs of changed products are collected as events arrive, and every
+ * {@code product.catalog-snapshot.refresh-interval-ms} only those products are reloaded and merged in. A merge
+ * copies only the segments holding or receiving a changed product, and shares the others with the previous
+ * snapshot. Once most of the dictionary is names no product uses anymore, it is compacted.
+ * Enabled with {@code product.catalog-snapshot.enabled=true}, which also requires
+ * {@code product.change-feed.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "product.catalog-snapshot.enabled", havingValue = "true")
+public class ProductCatalogSnapshot {
+
+    private static final int RELOAD_CHUNK_SIZE = 1000; // IDs per query when reloading changed products.
+    private static final int SEGMENT_SIZE = 4096; // Products per segment, so a merge copies little of a large catalog.
+    private static final int MIN_DEAD_NAMES = 64; // Below this, unused names are not worth a compaction.
+
+    private final ProductRepository productRepository;
+    private final ProductChangeFeed productChangeFeed;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Set<Long> changedIds = ConcurrentHashMap.newKeySet(); // Collected from the change feed.
+    private volatile boolean rebuildRequested = true; // Until built, and again whenever the feed asks for a resync.
+    private volatile Columns columns = Columns.EMPTY;
+
+    // Name dictionary, changed by refreshes only. Published snapshots never see codes added after them, and
+    // a compaction replaces the arrays instead of rewriting them.
+    private final Map<String, Integer> nameCodes = new HashMap<>();
+    private String[] names = new String[16];
+    private int[] nameUses = new int[16]; // Products of the latest snapshot using each name.
+    private int deadNames; // Names no product of the latest snapshot uses.
+
+    public ProductCatalogSnapshot(ProductRepository productRepository, ProductChangeFeed productChangeFeed,
+                                  PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.productChangeFeed = productChangeFeed;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        productChangeFeed.subscribe(new ProductChangeFeed.Listener() {
+            @Override
+            public void onChange(ProductChangeEvent event) {
+                changedIds.add(event.productId());
+            }
+
+            @Override
+            public void onResync() {
+                rebuildRequested = true;
+            }
+        });
+    }
+
+    /**
+     * Receives the products of a range scan, cheapest first.
+     */
+    @FunctionalInterface
+    public interface ProductVisitor {
+        /**
+         * @param id    The product ID.
+         * @param price The product price.
+         * @param name  The product name, or {@code null}.
+         * @return {@code true} to continue the scan, {@code false} to stop it.
+         */
+        boolean visit(long id, double price, String name);
+    }
+
+    /**
+     * Builds the snapshot if needed, or merges in the products changed since the last refresh.
+     * The first build waits until the change feed is connected, so no change made during the build is missed.
+     */
+    @Scheduled(fixedDelayString = "${product.catalog-snapshot.refresh-interval-ms:1000}")
+    public synchronized void refresh() {
+        if (productChangeFeed.getLastSequence() < 0) {
+            return;
+        }
+        if (rebuildRequested) {
+            rebuildRequested = false;
+            changedIds.clear(); // Changes made from now on are merged by the next refresh.
+            rebuild();
+            return;
+        }
+        if (changedIds.isEmpty()) {
+            return;
+        }
+        long[] changed = drainChangedIds();
+        List<ProductSummary> current = new ArrayList<>(changed.length);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (int from = 0; from < changed.length; from += RELOAD_CHUNK_SIZE) {
+                List<Long> chunk = new ArrayList<>(RELOAD_CHUNK_SIZE);
+                for (int i = from; i < Math.min(from + RELOAD_CHUNK_SIZE, changed.length); i++) {
+                    chunk.add(changed[i]);
+                }
+                current.addAll(productRepository.findSummariesByIds(chunk)); // Deleted products are simply absent.
+            }
+        });
+        merge(changed, current);
+    }
+
+    /**
+     * @return Whether the snapshot has been built; queries see an empty catalog until then.
+     */
+    public boolean isReady() {
+        return columns != Columns.EMPTY;
+    }
+
+    /**
+     * @return The number of products in the snapshot.
+     */
+    public int size() {
+        return columns.size;
+    }
+
+    /**
+     * @return The number of distinct names in the name dictionary, including those no product uses until the
+     * next compaction.
+     */
+    public synchronized int nameDictionarySize() {
+        return nameCodes.size();
+    }
+
+    /**
+     * Counts the products in a price range.
+     *
+     * @param minPrice The lowest price, inclusive.
+     * @param maxPrice The highest price, inclusive.
+     * @return The number of products in the range.
+     */
+    public int countInPriceRange(double minPrice, double maxPrice) {
+        Columns snapshot = columns;
+        return Math.max(0, snapshot.firstAbove(maxPrice) - snapshot.firstAtLeast(minPrice));
+    }
+
+    /**
+     * Copies the cheapest products into the given arrays.
+     *
+     * @param ids    Receives the IDs, cheapest first; its length is the maximum number of results.
+     * @param prices Receives the prices; at least as long as {@code ids}.
+     * @return The number of products copied.
+     */
+    public int cheapest(long[] ids, double[] prices) {
+        Columns snapshot = columns;
+        int count = Math.min(ids.length, snapshot.size);
+        snapshot.copy(0, ids, prices, count);
+        return count;
+    }
+
+    /**
+     * Copies one page of the products in a price range into the given arrays.
+     *
+     * @param minPrice The lowest price, inclusive.
+     * @param maxPrice The highest price, inclusive.
+     * @param offset   The number of matching products to skip, cheapest first; must not be negative.
+     * @param ids      Receives the IDs; its length is the page size.
+     * @param prices   Receives the prices; at least as long as {@code ids}.
+     * @return The number of products copied.
+     */
+    public int findInPriceRange(double minPrice, double maxPrice, int offset, long[] ids, double[] prices) {
+        Columns snapshot = columns;
+        int from = snapshot.firstAtLeast(minPrice) + offset;
+        int count = Math.max(0, Math.min(ids.length, snapshot.firstAbove(maxPrice) - from));
+        if (count == 0) {
+            return 0; // Also covers an offset past the end of the range.
+        }
+        snapshot.copy(from, ids, prices, count);
+        return count;
+    }
+
+    /**
+     * Visits the products in a price range, cheapest first, until the visitor returns {@code false}.
+     *
+     * @param minPrice The lowest price, inclusive.
+     * @param maxPrice The highest price, inclusive.
+     * @param visitor  Receives each product.
+     */
+    public void forEachInPriceRange(double minPrice, double maxPrice, ProductVisitor visitor) {
+        Columns snapshot = columns;
+        int from = snapshot.firstAtLeast(minPrice);
+        int remaining = snapshot.firstAbove(maxPrice) - from;
+        if (remaining <= 0) {
+            return;
+        }
+        int s = snapshot.segmentOf(from);
+        int i = from - snapshot.starts[s];
+        for (; remaining > 0; s++, i = 0) {
+            Segment segment = snapshot.segments[s];
+            for (; i < segment.size() && remaining > 0; i++, remaining--) {
+                int code = segment.nameCodes()[i];
+                if (!visitor.visit(segment.ids()[i], segment.prices()[i], code < 0 ? null : snapshot.names[code])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void rebuild() {
+        nameCodes.clear();
+        names = new String[16]; // Published snapshots keep the previous dictionary.
+        nameUses = new int[16];
+        deadNames = 0;
+        Columns.Builder builder = new Columns.Builder();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ProductSummary> products = productRepository.streamSummariesByPrice()) {
+                products.forEach(product -> builder.add(product.id(), product.price(), useName(product.name())));
+            }
+        });
+        columns = builder.build(names);
+    }
+
+    /**
+     * Replaces the changed products by their current state. Only the segments holding a changed product, or
+     * receiving one, are copied; the others are shared with the previous snapshot.
+     *
+     * @param changed The sorted IDs of the changed products.
+     * @param current The current state of the changed products that still exist.
+     */
+    private void merge(long[] changed, List<ProductSummary> current) {
+        current.sort((a, b) -> before(a.price(), a.id(), b.price(), b.id()) ? -1 : a.id().equals(b.id()) ? 0 : 1);
+        Columns old = columns;
+        Columns.Builder builder = new Columns.Builder();
+        int next = 0;
+        for (int s = 0; s < old.segments.length; s++) {
+            Segment segment = old.segments[s];
+            // A segment receives the products ordered up to its last one; the last segment receives the rest.
+            int end = next;
+            boolean lastSegment = s == old.segments.length - 1;
+            while (end < current.size() && (lastSegment || !before(segment.lastPrice(), segment.lastId(),
+                    current.get(end).price(), current.get(end).id()))) {
+                end++;
+            }
+            if (end == next && !segment.containsAny(changed)) {
+                builder.addSegment(segment); // Untouched: shared, not copied.
+                continue;
+            }
+            for (int i = 0; i < segment.size(); i++) {
+                if (Arrays.binarySearch(changed, segment.ids()[i]) >= 0) {
+                    releaseName(segment.nameCodes()[i]);
+                    continue; // Replaced by its current state, or deleted.
+                }
+                for (; next < end && before(current.get(next).price(), current.get(next).id(),
+                        segment.prices()[i], segment.ids()[i]); next++) {
+                    add(builder, current.get(next));
+                }
+                builder.add(segment.ids()[i], segment.prices()[i], segment.nameCodes()[i]);
+            }
+            for (; next < end; next++) {
+                add(builder, current.get(next));
+            }
+        }
+        for (; next < current.size(); next++) { // Only left when the snapshot was empty.
+            add(builder, current.get(next));
+        }
+        Columns merged = builder.build(names);
+        boolean mostlyDead = deadNames > MIN_DEAD_NAMES && deadNames > nameCodes.size() - deadNames;
+        columns = mostlyDead ? compactNames(merged) : merged;
+    }
+
+    private void add(Columns.Builder builder, ProductSummary product) {
+        builder.add(product.id(), product.price(), useName(product.name()));
+    }
+
+    /**
+     * Drops the names no product uses from the dictionary, and re-codes the given snapshot accordingly.
+     * Its IDs and prices are shared; only the name codes are copied.
+     */
+    private Columns compactNames(Columns snapshot) {
+        int[] newCodes = new int[nameCodes.size()];
+        String[] liveNames = new String[Math.max(16, nameCodes.size() - deadNames)];
+        int[] liveUses = new int[liveNames.length];
+        nameCodes.clear();
+        for (int code = 0; code < newCodes.length; code++) {
+            if (nameUses[code] > 0) {
+                int newCode = nameCodes.size();
+                newCodes[code] = newCode;
+                liveNames[newCode] = names[code];
+                liveUses[newCode] = nameUses[code];
+                nameCodes.put(names[code], newCode);
+            }
+        }
+        names = liveNames; // New arrays, as published snapshots keep reading the previous dictionary.
+        nameUses = liveUses;
+        deadNames = 0;
+        Segment[] segments = new Segment[snapshot.segments.length];
+        for (int s = 0; s < segments.length; s++) {
+            Segment segment = snapshot.segments[s];
+            int[] codes = new int[segment.size()];
+            for (int i = 0; i < codes.length; i++) {
+                int code = segment.nameCodes()[i];
+                codes[i] = code < 0 ? -1 : newCodes[code];
+            }
+            segments[s] = new Segment(segment.ids(), segment.prices(), codes, segment.size());
+        }
+        return new Columns(segments, names);
+    }
+
+    private long[] drainChangedIds() {
+        List<Long> drained = new ArrayList<>(changedIds.size());
+        for (Iterator<Long> iterator = changedIds.iterator(); iterator.hasNext(); ) {
+            drained.add(iterator.next());
+            iterator.remove(); // An ID re-added concurrently stays for the next refresh.
+        }
+        long[] sorted = drained.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @return The dictionary code of a name, added if new, counting one more product using it.
+     */
+    private int useName(String name) {
+        if (name == null) {
+            return -1;
+        }
+        Integer code = nameCodes.get(name);
+        if (code == null) {
+            code = nameCodes.size();
+            if (code == names.length) {
+                names = Arrays.copyOf(names, code * 2);
+                nameUses = Arrays.copyOf(nameUses, code * 2);
+            }
+            names[code] = name;
+            nameCodes.put(name, code);
+        } else if (nameUses[code] == 0) {
+            deadNames--; // Used again before a compaction dropped it.
+        }
+        nameUses[code]++;
+        return code;
+    }
+
+    private void releaseName(int code) {
+        if (code >= 0 && --nameUses[code] == 0) {
+            deadNames++;
+        }
+    }
+
+    /**
+     * Orders products like the {@code (price, id)} index, with primitive comparisons.
+     */
+    private static boolean before(double price, long id, double otherPrice, long otherId) {
+        return price < otherPrice || (price == otherPrice && id < otherId);
+    }
+
+    /**
+     * A run of consecutive products, in {@code (price, id)} order; never empty.
+     *
+     * @param nameCodes Index into the names of the snapshot, or -1 for no name.
+     * @param size      The number of products; the arrays may have spare capacity, which is never read.
+     */
+    private record Segment(long[] ids, double[] prices, int[] nameCodes, int size) {
+
+        double lastPrice() {
+            return prices[size - 1];
+        }
+
+        long lastId() {
+            return ids[size - 1];
+        }
+
+        boolean containsAny(long[] sortedIds) {
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(sortedIds, ids[i]) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return The index of the first product whose price is at least the given one, or {@code size}.
+         */
+        int firstAtLeast(double price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[middle] < price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return The index of the first product whose price is above the given one, or {@code size}.
+         */
+        int firstAbove(double price) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[middle] <= price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * One immutable version of the snapshot.
+     */
+    private static final class Columns {
+
+        static final Columns EMPTY = new Columns(new Segment[0], new String[0]);
+
+        final Segment[] segments;
+        final int[] starts; // Position of the first product of each segment in the whole snapshot.
+        final String[] names;
+        final int size;
+
+        Columns(Segment[] segments, String[] names) {
+            this.segments = segments;
+            this.starts = new int[segments.length];
+            this.names = names;
+            int position = 0;
+            for (int s = 0; s < segments.length; s++) {
+                starts[s] = position;
+                position += segments[s].size();
+            }
+            this.size = position;
+        }
+
+        /**
+         * @return The index of the segment holding the product at the given position.
+         */
+        int segmentOf(int position) {
+            int found = Arrays.binarySearch(starts, position);
+            return found >= 0 ? found : -found - 2; // Segments are never empty, so starts are distinct.
+        }
+
+        /**
+         * @return The position of the first product whose price is at least the given one.
+         */
+        int firstAtLeast(double price) {
+            int low = 0;
+            int high = segments.length;
+            while (low < high) { // Finds the first segment ending at or above the price.
+                int middle = (low + high) >>> 1;
+                if (segments[middle].lastPrice() < price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low == segments.length ? size : starts[low] + segments[low].firstAtLeast(price);
+        }
+
+        /**
+         * @return The position of the first product whose price is above the given one.
+         */
+        int firstAbove(double price) {
+            int low = 0;
+            int high = segments.length;
+            while (low < high) { // Finds the first segment ending above the price.
+                int middle = (low + high) >>> 1;
+                if (segments[middle].lastPrice() <= price) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low == segments.length ? size : starts[low] + segments[low].firstAbove(price);
+        }
+
+        /**
+         * Copies the IDs and prices of consecutive products, across segments.
+         */
+        void copy(int from, long[] ids, double[] prices, int count) {
+            if (count == 0) {
+                return; // The snapshot may have no segment at all.
+            }
+            int s = segmentOf(from);
+            int offset = from - starts[s];
+            for (int copied = 0; copied < count; s++, offset = 0) {
+                Segment segment = segments[s];
+                int length = Math.min(count - copied, segment.size() - offset);
+                System.arraycopy(segment.ids(), offset, ids, copied, length);
+                System.arraycopy(segment.prices(), offset, prices, copied, length);
+                copied += length;
+            }
+        }
+
+        /**
+         * Appends products, already in {@code (price, id)} order, and whole segments, cutting new segments
+         * of at most {@code SEGMENT_SIZE} products.
+         */
+        static final class Builder {
+            private final List<Segment> segments = new ArrayList<>();
+            private long[] ids;
+            private double[] prices;
+            private int[] nameCodes;
+            private int size;
+
+            void add(long id, double price, int nameCode) {
+                if (ids == null) {
+                    ids = new long[SEGMENT_SIZE];
+                    prices = new double[SEGMENT_SIZE];
+                    nameCodes = new int[SEGMENT_SIZE];
+                }
+                ids[size] = id;
+                prices[size] = price;
+                nameCodes[size] = nameCode;
+                if (++size == SEGMENT_SIZE) {
+                    cut();
+                }
+            }
+
+            void addSegment(Segment segment) {
+                cut();
+                segments.add(segment);
+            }
+
+            Columns build(String[] names) {
+                cut();
+                return new Columns(segments.toArray(Segment[]::new), names);
+            }
+
+            private void cut() {
+                if (size > 0) {
+                    segments.add(size == SEGMENT_SIZE ? new Segment(ids, prices, nameCodes, size)
+                            : new Segment(Arrays.copyOf(ids, size), Arrays.copyOf(prices, size),
+                            Arrays.copyOf(nameCodes, size), size)); // Trims the spare capacity of a partial segment.
+                }
+                ids = null;
+                prices = null;
+                nameCodes = null;
+                size = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example;
+
+/**
+ * A change to a product row, delivered by the {@link ProductChangeFeed}.
+ *
+ * @param sequence  The ID of the event in the {@code product_outbox} table; increases with each change of a
+ *                  product, but events of different products are not always delivered in ID order.
+ * @param type      The kind of change.
+ * @param productId The ID of the changed product.
+ * @param version   The product version after the change (before it, for {@link Type#DELETED}).
+ */
+public record ProductChangeEvent(long sequence, Type type, long productId, long version) {
+
+    /**
+     * The kinds of product changes.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
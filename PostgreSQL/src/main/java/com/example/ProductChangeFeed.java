@@ -0,0 +1,304 @@
+package com.example;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Push-based feed of product changes, so components can react to writes made by any application
+ * instance without polling the {@code product} table.
+ * <p>
+ * Every product change is recorded in the {@code product_outbox} table (see {@link ProductOutboxRelay}),
+ * whose inserts raise a {@code NOTIFY product_changes} on commit. The feed listens on a dedicated
+ * connection, outside the connection pool, fetches the new events and passes them to its subscribers,
+ * on the feed thread. The changes of one product arrive in the order they were committed.
+ * <p>
+ * Outbox IDs are drawn at insert time, so a transaction that commits after a later one can add events
+ * below IDs already delivered. The feed therefore does not track the last ID: it remembers the database
+ * snapshot it last read at, and each read fetches the events of the transactions that were not visible in
+ * that snapshot, whatever their IDs. When the connection is lost it reconnects with exponential backoff and
+ * catches up from that snapshot. Delivery is at-least-once, so subscribers must be idempotent.
+ * <p>
+ * Enabled with {@code product.change-feed.enabled=true}. The connection uses the
+ * {@code spring.datasource.*} settings unless {@code product.change-feed.url}, {@code username} and
+ * {@code password} are set, for example to point at the primary when read/write splitting is enabled.
+ * The {@link ProductCache} subscribes to the feed, so products changed by other instances are evicted.
+ */
+@Component
+@ConditionalOnProperty(name = "product.change-feed.enabled", havingValue = "true")
+public class ProductChangeFeed implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    private static final String CHANNEL = "product_changes";
+    // The events committed since the given snapshot, after the given ID. Every transaction not visible in a
+    // snapshot is at or above its xmin, which bounds the scan. Events of one product are in ID order.
+    private static final String EVENTS_SQL = "SELECT id, event_type, product_id, (payload ->> 'version')::bigint AS version "
+            + "FROM product_outbox WHERE txid >= pg_snapshot_xmin(?::pg_snapshot) "
+            + "AND NOT pg_visible_in_snapshot(txid, ?::pg_snapshot) AND id > ? ORDER BY id LIMIT ?";
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int pollTimeoutMs; // How long the feed thread waits for notifications before checking for shutdown.
+    private final long maxBackoffMs;
+    private final int catchUpBatchSize;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long lastSequence = -1; // The highest delivered event; -1 until the feed has connected once.
+    private String deliveredSnapshot; // Every event visible in this snapshot was delivered. Feed thread only.
+    private volatile boolean running;
+    private volatile Thread feedThread;
+    private volatile Connection connection; // Closed by stop() to interrupt a blocking wait.
+
+    public ProductChangeFeed(ProductCache productCache,
+                             @Value("${product.change-feed.url:${spring.datasource.url}}") String url,
+                             @Value("${product.change-feed.username:${spring.datasource.username:}}") String username,
+                             @Value("${product.change-feed.password:${spring.datasource.password:}}") String password,
+                             @Value("${product.change-feed.poll-timeout-ms:1000}") int pollTimeoutMs,
+                             @Value("${product.change-feed.max-backoff-ms:30000}") long maxBackoffMs,
+                             @Value("${product.change-feed.catch-up-batch-size:1000}") int catchUpBatchSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.catchUpBatchSize = catchUpBatchSize;
+        subscribe(new Listener() {
+            @Override
+            public void onChange(ProductChangeEvent event) {
+                productCache.invalidate(event.productId());
+            }
+
+            @Override
+            public void onResync() {
+                productCache.invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Receives product changes from the feed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Called for each product change, on the feed thread; it should return quickly.
+         *
+         * @param event The change.
+         */
+        void onChange(ProductChangeEvent event);
+
+        /**
+         * Called when the feed may have missed changes, because the events recorded while it was
+         * disconnected were already purged from the outbox. Listeners should reload their state.
+         */
+        default void onResync() {
+        }
+    }
+
+    /**
+     * Registers a listener for the changes committed from now on.
+     *
+     * @param listener The listener to add.
+     */
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener The listener to remove.
+     */
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return The highest sequence delivered so far, or -1 if the feed has not connected yet.
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        feedThread = Thread.ofPlatform().name("product-change-feed").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        closeQuietly(connection); // Unblocks a pending wait for notifications.
+        Thread thread = feedThread;
+        if (thread != null) {
+            thread.interrupt(); // Cuts a reconnect backoff short.
+            try {
+                thread.join(pollTimeoutMs * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        long backoffMs = 100;
+        while (running) {
+            try (Connection listenConnection = connect()) {
+                connection = listenConnection;
+                try (Statement statement = listenConnection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL); // Before catching up, so nothing committed in between is lost.
+                }
+                // Each read sees one snapshot, and the events it returns are exactly the ones visible in it.
+                listenConnection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                listenConnection.setAutoCommit(false);
+                catchUp(listenConnection);
+                backoffMs = 100; // Connected and caught up.
+                PGConnection pgConnection = listenConnection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        deliver(listenConnection); // One read covers all the transactions notified so far.
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break; // Closed by stop().
+                }
+                log.warn("Product change feed disconnected; reconnecting in {} ms", backoffMs, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("ApplicationName", "product-change-feed"); // Identifies the connection in pg_stat_activity.
+        return DriverManager.getConnection(url, properties);
+    }
+
+    /**
+     * Delivers the events committed since the last read. On the first connection, the feed starts from
+     * the current snapshot instead of replaying the whole outbox.
+     */
+    private void catchUp(Connection listenConnection) throws SQLException {
+        if (deliveredSnapshot == null) {
+            try (Statement statement = listenConnection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT pg_current_snapshot()::text, coalesce(max(id), 0) FROM product_outbox")) {
+                resultSet.next();
+                deliveredSnapshot = resultSet.getString(1);
+                lastSequence = resultSet.getLong(2);
+            }
+            listenConnection.commit();
+            return;
+        }
+        boolean purged;
+        try (Statement statement = listenConnection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT NOT EXISTS (SELECT 1 FROM product_outbox WHERE id = " + lastSequence + ") "
+                             + "AND EXISTS (SELECT 1 FROM product_outbox WHERE id > " + lastSequence + ")")) {
+            resultSet.next();
+            purged = lastSequence > 0 && resultSet.getBoolean(1);
+        }
+        if (purged) {
+            // The last delivered event was purged, so undelivered events may have been purged too.
+            listeners.forEach(listener -> safely(listener::onResync));
+        }
+        deliver(listenConnection);
+    }
+
+    /**
+     * Delivers the events of the transactions committed since the last read, in pages of
+     * {@code product.change-feed.catch-up-batch-size}, all read in one transaction. The snapshot of that
+     * transaction becomes the starting point of the next read only once every page is delivered.
+     */
+    private void deliver(Connection listenConnection) throws SQLException {
+        try {
+            String snapshot;
+            try (Statement statement = listenConnection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT pg_current_snapshot()::text")) {
+                resultSet.next();
+                snapshot = resultSet.getString(1);
+            }
+            try (PreparedStatement statement = listenConnection.prepareStatement(EVENTS_SQL)) {
+                statement.setString(1, deliveredSnapshot);
+                statement.setString(2, deliveredSnapshot);
+                statement.setInt(4, catchUpBatchSize);
+                long afterId = 0;
+                int count;
+                do {
+                    statement.setLong(3, afterId);
+                    count = 0;
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            ProductChangeEvent event = new ProductChangeEvent(
+                                    resultSet.getLong("id"),
+                                    ProductChangeEvent.Type.valueOf(resultSet.getString("event_type")),
+                                    resultSet.getLong("product_id"),
+                                    resultSet.getLong("version"));
+                            listeners.forEach(listener -> safely(() -> listener.onChange(event)));
+                            lastSequence = Math.max(lastSequence, event.sequence());
+                            afterId = event.sequence();
+                            count++;
+                        }
+                    }
+                } while (count == catchUpBatchSize);
+            }
+            deliveredSnapshot = snapshot;
+        } finally {
+            listenConnection.commit(); // Read-only; ends the snapshot so it does not hold back vacuum.
+        }
+    }
+
+    /**
+     * Runs a listener callback, so a failing listener neither stops the feed nor starves the others.
+     */
+    private static void safely(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            log.warn("Product change listener failed", e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Already broken; the feed thread reconnects or exits.
+            }
+        }
+    }
+}
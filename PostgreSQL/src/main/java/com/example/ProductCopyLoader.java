@@ -0,0 +1,311 @@
+package com.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Streams products from CSV or NDJSON input into the {@code product} table using the
+ * PostgreSQL {@code COPY FROM STDIN} protocol.
+ * <p>
+ * Rows are parsed and validated one line at a time and written straight to the COPY stream,
+ * so memory use does not depend on the input size. Rows are first copied into a temporary
+ * staging table and then merged into {@code product} with a single statement, all within one
+ * transaction: a failed load leaves the table untouched, and a {@link Mode#REPLACE} refresh
+ * becomes visible to readers atomically.
+ */
+@Component
+public class ProductCopyLoader {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024; // Bytes buffered before a COPY data message is sent.
+    private static final JsonFactory JSON_FACTORY = new JsonFactory(); // Thread-safe, reused for every NDJSON line.
+
+    private final DataSource dataSource;
+    private final ProductCache productCache;
+    private final long progressInterval; // Number of rows between two progress reports.
+
+    public ProductCopyLoader(DataSource dataSource, ProductCache productCache,
+                             @Value("${product.copy.progress-interval:100000}") long progressInterval) {
+        this.dataSource = dataSource;
+        this.productCache = productCache;
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Supported input formats.
+     */
+    public enum Format {
+        /**
+         * One {@code name,price} record per line. Names may be quoted with {@code "}; an optional
+         * {@code name,price} header line is skipped.
+         */
+        CSV,
+        /**
+         * One JSON object per line, with {@code name} and {@code price} fields.
+         */
+        NDJSON
+    }
+
+    /**
+     * How loaded rows are merged into the {@code product} table.
+     */
+    public enum Mode {
+        /**
+         * Adds the loaded rows to the existing products.
+         */
+        APPEND,
+        /**
+         * Replaces all existing products with the loaded rows in one transaction.
+         */
+        REPLACE
+    }
+
+    /**
+     * Receives progress reports while a load is running.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(LoadResult progress);
+    }
+
+    /**
+     * Outcome (or intermediate progress) of a load.
+     *
+     * @param rows    The number of rows streamed so far.
+     * @param elapsed The time spent so far.
+     */
+    public record LoadResult(long rows, Duration elapsed) {
+
+        /**
+         * @return The throughput of the load, in rows per second.
+         */
+        public double rowsPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+        }
+    }
+
+    /**
+     * Loads products without progress reporting.
+     *
+     * @see #load(InputStream, Format, Mode, ProgressListener)
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public LoadResult load(InputStream input, Format format, Mode mode) throws IOException {
+        return load(input, format, mode, progress -> {
+        });
+    }
+
+    /**
+     * Streams products from the given input into the {@code product} table.
+     *
+     * @param input    The UTF-8 encoded input; it is read to the end but not closed.
+     * @param format   The input format.
+     * @param mode     How the loaded rows are merged into the table.
+     * @param listener Receives a report every {@code product.copy.progress-interval} rows.
+     * @return The number of rows loaded and the load throughput.
+     * @throws IllegalArgumentException if a product price is negative or not finite, or a line cannot be parsed;
+     *                                  nothing is loaded in that case.
+     * @throws IOException              if reading the input fails.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public LoadResult load(InputStream input, Format format, Mode mode, ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        Connection connection = DataSourceUtils.getConnection(dataSource); // Joins the current transaction.
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMPORARY TABLE IF NOT EXISTS product_staging "
+                        + "(name VARCHAR(255), price DOUBLE PRECISION) ON COMMIT DROP");
+                statement.execute("TRUNCATE product_staging");
+            }
+
+            long rows = copyIntoStaging(connection, input, format, listener, start);
+
+            try (Statement statement = connection.createStatement()) {
+                if (mode == Mode.REPLACE) {
+                    // DELETE rather than TRUNCATE: readers keep seeing the old rows until the transaction commits.
+                    statement.executeUpdate("DELETE FROM product");
+                    productCache.invalidateAll(); // Every cached product is about to disappear.
+                }
+                statement.executeUpdate("INSERT INTO product (id, name, price, version) "
+                        + "SELECT nextval('product_seq'), name, price, 0 FROM product_staging");
+            }
+            return new LoadResult(rows, Duration.ofNanos(System.nanoTime() - start));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load products with COPY", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private long copyIntoStaging(Connection connection, InputStream input, Format format,
+                                 ProgressListener listener, long start) throws SQLException, IOException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        PGCopyOutputStream copyStream = new PGCopyOutputStream(pgConnection,
+                "COPY product_staging (name, price) FROM STDIN WITH (FORMAT csv)", COPY_BUFFER_SIZE);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(copyStream, StandardCharsets.UTF_8));
+
+        long rows = 0;
+        long lineNumber = 0;
+        ParsedRow row = new ParsedRow(); // Reused for every line.
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                    continue;
+                }
+                try {
+                    if (format == Format.CSV) {
+                        parseCsv(line, row);
+                    } else {
+                        parseJson(line, row);
+                    }
+                    ProductService.validatePrice(row.price);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(e.getMessage() + " (line " + lineNumber + ")", e);
+                }
+                writeCsv(writer, row);
+                if (++rows % progressInterval == 0) {
+                    listener.onProgress(new LoadResult(rows, Duration.ofNanos(System.nanoTime() - start)));
+                }
+            }
+            writer.close(); // Flushes the remaining data and ends the COPY.
+            return rows;
+        } catch (RuntimeException | IOException e) {
+            if (copyStream.isActive()) {
+                copyStream.cancelCopy(); // Aborts the COPY so the connection can be rolled back cleanly.
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.replace("\"", "").trim().equalsIgnoreCase("name,price");
+    }
+
+    /**
+     * Parses a {@code name,price} line, where the name may be quoted and contain commas or doubled quotes.
+     */
+    private static void parseCsv(String line, ParsedRow row) {
+        int priceStart;
+        if (line.startsWith("\"")) {
+            StringBuilder name = new StringBuilder();
+            int i = 1;
+            while (true) {
+                if (i >= line.length()) {
+                    throw new IllegalArgumentException("Unterminated quoted name");
+                }
+                char c = line.charAt(i++);
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        name.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    name.append(c);
+                }
+            }
+            if (i >= line.length() || line.charAt(i) != ',') {
+                throw new IllegalArgumentException("Expected ',' after quoted name");
+            }
+            row.name = name.toString();
+            priceStart = i + 1;
+        } else {
+            int comma = line.lastIndexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("Expected 'name,price'");
+            }
+            row.name = line.substring(0, comma);
+            priceStart = comma + 1;
+        }
+        row.price = parsePrice(line.substring(priceStart).trim());
+    }
+
+    private static void parseJson(String line, ParsedRow row) {
+        row.name = null;
+        boolean hasPrice = false; // Tracked apart from the value, so "NaN" is rejected as such, not as missing.
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("name".equals(field)) {
+                    row.name = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                } else if ("price".equals(field)) {
+                    row.price = value.isNumeric() ? parser.getDoubleValue() : parsePrice(parser.getValueAsString());
+                    hasPrice = true;
+                } else {
+                    parser.skipChildren(); // Ignores unknown fields, including nested ones.
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getMessage(), e);
+        }
+        if (!hasPrice) {
+            throw new IllegalArgumentException("Missing price");
+        }
+    }
+
+    private static double parsePrice(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid price: " + value);
+        }
+    }
+
+    /**
+     * Writes a row in PostgreSQL's CSV COPY format; an unquoted empty name stands for NULL.
+     */
+    private static void writeCsv(Writer writer, ParsedRow row) throws IOException {
+        if (row.name != null) {
+            writer.write('"');
+            String name = row.name;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c == '"') {
+                    writer.write('"'); // Doubles embedded quotes.
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+        writer.write(',');
+        writer.write(Double.toString(row.price));
+        writer.write('\n');
+    }
+
+    /**
+     * Mutable holder for the fields of the line being parsed, so parsing does not allocate per row.
+     */
+    private static final class ParsedRow {
+        private String name;
+        private double price;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency, row and SQL statement metrics for the {@link ProductService} operations.
+ * <p>
+ * Each operation records:
+ * <ul>
+ *     <li>{@code product.service.calls}: a timer with percentiles and a latency histogram, tagged by
+ *     {@code operation} and {@code outcome} ({@code success} or {@code error});</li>
+ *     <li>{@code product.service.statements}: the number of SQL statements executed on the calling thread during
+ *     the call, a JDBC batch counting as one;</li>
+ *     <li>{@code product.service.rows}: the number of products returned, for operations returning products.</li>
+ * </ul>
+ * The meters are published with the rest of the application metrics, including the HikariCP pool gauges,
+ * on the actuator {@code /actuator/metrics} and {@code /actuator/prometheus} endpoints.
+ * <p>
+ * Statements are counted at the JDBC layer, by wrapping the application's {@code dataSource} bean, so those
+ * sent through Hibernate and those sent on the raw connection, with {@code Session.doWork} or
+ * {@code DataSourceUtils}, are counted alike. {@code COPY} operations bypass JDBC statements and are not counted.
+ */
+@Component
+public class ProductMetrics {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource"; // The data source Hibernate and the services use.
+    private static final ThreadLocal<long[]> statementCount = ThreadLocal.withInitial(() -> new long[1]); // Avoids boxing.
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, OperationMeters> operations = new ConcurrentHashMap<>(); // Built once per operation.
+
+    public ProductMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        // Falls back to an in-memory registry where actuator is not configured, e.g. in slice tests.
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    /**
+     * Wraps the application's data source, so the statements executed on its connections are counted.
+     * Static, so the post-processor is registered before the data source is created, without this class.
+     *
+     * @return The post-processor.
+     */
+    @Bean
+    static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Runs a service operation, recording its latency and the number of SQL statements it executed.
+     *
+     * @param operation The name of the operation, used as the {@code operation} tag.
+     * @param call      The operation itself.
+     * @return The result of the operation.
+     */
+    public <T> T record(String operation, Supplier<T> call) {
+        OperationMeters meters = meters(operation);
+        long statementsBefore = statementCount.get()[0];
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            (success ? meters.success : meters.error).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.statements.record(statementCount.get()[0] - statementsBefore);
+        }
+    }
+
+    /**
+     * Runs a service operation without a result.
+     *
+     * @see #record(String, Supplier)
+     */
+    public void record(String operation, Runnable call) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the number of products an operation returned.
+     *
+     * @param operation The name of the operation.
+     * @param rows      The number of products returned.
+     */
+    public void recordRows(String operation, long rows) {
+        meters(operation).rows.record(rows);
+    }
+
+    /**
+     * @return The registry the product meters are registered in.
+     */
+    public MeterRegistry getMeterRegistry() {
+        return meterRegistry;
+    }
+
+    private OperationMeters meters(String operation) {
+        return operations.computeIfAbsent(operation, name -> new OperationMeters(
+                timer(name, "success"),
+                timer(name, "error"),
+                DistributionSummary.builder("product.service.statements")
+                        .description("SQL statements executed per product service call")
+                        .tag("operation", name)
+                        .register(meterRegistry),
+                DistributionSummary.builder("product.service.rows")
+                        .description("Products returned per product service call")
+                        .tag("operation", name)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)));
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("product.service.calls")
+                .description("Latency of product service calls")
+                .tags("operation", operation, "outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99) // Client-side percentiles, visible on /actuator/metrics.
+                .publishPercentileHistogram() // Server-side buckets, for aggregated percentiles in Prometheus.
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts the statements executed on its connections. The wrapped data source, such as the HikariCP pool,
+     * remains reachable through {@link #unwrap(Class)}, so the pool metrics still find it.
+     */
+    private static final class StatementCountingDataSource extends DelegatingDataSource {
+
+        StatementCountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection(), Connection.class);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password), Connection.class);
+        }
+
+        /**
+         * Wraps a connection, so the statements it creates are wrapped too, or a statement, so its executions
+         * are counted.
+         */
+        private static <T> T counting(T target, Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        // Identity is the proxy's own, as for the connections of ConnectionPermitDataSource.
+                        if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                            return proxy == args[0];
+                        }
+                        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                            return System.identityHashCode(proxy);
+                        }
+                        if (target instanceof Statement && method.getName().startsWith("execute")) {
+                            statementCount.get()[0]++; // Counted up front, so failed executions count too.
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException(); // Rethrows the original SQLException.
+                        }
+                        return target instanceof Connection ? wrapStatement(result) : result;
+                    }));
+        }
+
+        private static Object wrapStatement(Object result) {
+            // Most specific type first, so callers can still cast to the type they asked for.
+            if (result instanceof CallableStatement statement) {
+                return counting(statement, CallableStatement.class);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return counting(statement, PreparedStatement.class);
+            }
+            if (result instanceof Statement statement) {
+                return counting(statement, Statement.class);
+            }
+            return result;
+        }
+    }
+
+    private record OperationMeters(Timer success, Timer error, DistributionSummary statements,
+                                   DistributionSummary rows) {
+    }
+}
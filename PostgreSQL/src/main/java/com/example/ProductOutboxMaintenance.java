@@ -0,0 +1,58 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@code product_outbox} table bounded, whether or not the {@link ProductOutboxRelay} runs.
+ * <p>
+ * The outbox triggers record an event for every product write, and the {@link ProductChangeFeed} reads them
+ * even when nothing relays them to Pub/Sub. Every {@code product.outbox.purge-interval-ms}, this job deletes
+ * the events published more than {@code product.outbox.retention-hours} ago. With the relay disabled, events
+ * are never published, so it deletes the events recorded more than that long ago instead. On by default; set
+ * {@code product.outbox.maintenance.enabled=false} when the outbox is purged outside the application.
+ */
+@Component
+@ConditionalOnProperty(name = "product.outbox.maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductOutboxMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductOutboxMaintenance.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long retentionHours;
+    private final boolean relayEnabled;
+
+    public ProductOutboxMaintenance(JdbcTemplate jdbcTemplate,
+                                    @Value("${product.outbox.retention-hours:24}") long retentionHours,
+                                    @Value("${product.outbox.relay.enabled:false}") boolean relayEnabled) {
+        if (retentionHours < 1) {
+            throw new IllegalArgumentException("Outbox retention hours must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionHours = retentionHours;
+        this.relayEnabled = relayEnabled;
+    }
+
+    /**
+     * Deletes the events that are older than the retention period: published ones while the relay is
+     * enabled, all of them otherwise.
+     *
+     * @return The number of events deleted.
+     */
+    @Scheduled(fixedDelayString = "${product.outbox.purge-interval-ms:3600000}")
+    public int purge() {
+        // Unpublished events are kept for the relay, which publishes them however old they are.
+        String olderThan = relayEnabled ? "published_at" : "created_at";
+        int deleted = jdbcTemplate.update("DELETE FROM product_outbox "
+                + "WHERE " + olderThan + " < clock_timestamp() - make_interval(hours => ?)", (int) retentionHours);
+        if (deleted > 0) {
+            log.info("Purged {} product outbox events", deleted);
+        }
+        return deleted;
+    }
+}
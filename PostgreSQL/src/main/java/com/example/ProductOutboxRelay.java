@@ -0,0 +1,254 @@
+package com.example;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.PublisherFactory;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the product change events recorded in the {@code product_outbox} table to Pub/Sub.
+ * <p>
+ * Database triggers write one event per created, updated or deleted product in the transaction of the
+ * change, so product writes never wait for the broker and rolled-back changes publish nothing. The relay
+ * claims unpublished events in batches of {@code product.outbox.relay.batch-size}, publishes them with at
+ * most {@code product.outbox.relay.max-in-flight} concurrent requests, and marks the acknowledged ones as
+ * published. A batch is claimed in one short statement that leases its events for
+ * {@code product.outbox.relay.lease-ms}, so no row lock or connection is held while waiting for the
+ * broker, and several application instances can relay side by side. Events left leased by an instance
+ * that died mid-batch are claimed again once their lease expires.
+ * <p>
+ * The events of one product are published in commit order: each carries the product ID as its ordering
+ * key, which needs {@code spring.cloud.gcp.pubsub.publisher.enable-message-ordering=true}, and an event is
+ * only claimed once no earlier event of its product is leased by another relay. Subscriptions with message
+ * ordering enabled then receive them in that order. Delivery is at-least-once: consumers deduplicate with
+ * the {@code outbox_id} attribute. Published events are purged by the {@link ProductOutboxMaintenance}.
+ * <p>
+ * Enabled with {@code product.outbox.relay.enabled=true}; {@code @EnableScheduling} on
+ * {@link ProductApplication} drives it.
+ */
+@Component
+@ConditionalOnProperty(name = "product.outbox.relay.enabled", havingValue = "true")
+public class ProductOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductOutboxRelay.class);
+
+    private static final String CLAIM_SQL = "UPDATE product_outbox "
+            + "SET claimed_until = clock_timestamp() + ? * interval '1 millisecond' "
+            + "WHERE id IN (SELECT o.id FROM product_outbox o "
+            + "WHERE o.published_at IS NULL AND (o.claimed_until IS NULL OR o.claimed_until < clock_timestamp()) "
+            + "AND NOT EXISTS (SELECT 1 FROM product_outbox earlier " // Still being relayed elsewhere.
+            + "WHERE earlier.product_id = o.product_id AND earlier.id < o.id AND earlier.published_at IS NULL "
+            + "AND earlier.claimed_until >= clock_timestamp()) "
+            + "ORDER BY o.id LIMIT ? FOR UPDATE OF o SKIP LOCKED) "
+            + "RETURNING id, event_type, product_id, payload, created_at";
+    // Marks the acknowledged events as published and releases the others for the next batch.
+    private static final String COMPLETE_SQL = "UPDATE product_outbox "
+            + "SET published_at = CASE WHEN id = ANY (?) THEN clock_timestamp() END, claimed_until = NULL "
+            + "WHERE id = ANY (?)";
+    private static final RowMapper<OutboxEvent> EVENT_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getLong("id"),
+            rs.getString("event_type"),
+            rs.getLong("product_id"),
+            rs.getString("payload"),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PubSubTemplate pubSubTemplate;
+    private final PublisherFactory publisherFactory;
+    private final String topic;
+    private final int batchSize;
+    private final Semaphore inFlight; // Bounds the concurrent publish requests.
+    private final long publishTimeoutMs;
+    private final long leaseMs;
+
+    private final Timer lag; // From the product change to the broker's acknowledgement.
+    private final Timer batchDuration;
+    private final Counter published;
+    private final Counter failed;
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong(); // Refreshed after every relay run.
+
+    public ProductOutboxRelay(JdbcTemplate jdbcTemplate, PubSubTemplate pubSubTemplate,
+                              PublisherFactory publisherFactory, ProductMetrics productMetrics,
+                              @Value("${product.outbox.topic:product-events}") String topic,
+                              @Value("${product.outbox.relay.batch-size:500}") int batchSize,
+                              @Value("${product.outbox.relay.max-in-flight:64}") int maxInFlight,
+                              @Value("${product.outbox.relay.publish-timeout-ms:30000}") long publishTimeoutMs,
+                              @Value("${product.outbox.relay.lease-ms:60000}") long leaseMs) {
+        if (batchSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Outbox batch size and max in-flight publishes must be positive");
+        }
+        if (leaseMs <= publishTimeoutMs) {
+            // A shorter lease would let another relay publish the batch again while this one still waits.
+            throw new IllegalArgumentException("Outbox lease must be longer than the publish timeout");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.pubSubTemplate = pubSubTemplate;
+        this.publisherFactory = publisherFactory;
+        this.topic = topic;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.publishTimeoutMs = publishTimeoutMs;
+        this.leaseMs = leaseMs;
+
+        MeterRegistry registry = productMetrics.getMeterRegistry();
+        this.lag = Timer.builder("product.outbox.lag")
+                .description("Time from a product change to the acknowledgement of its event by Pub/Sub")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchDuration = Timer.builder("product.outbox.relay.batch")
+                .description("Time to claim, publish and mark one batch of outbox events")
+                .register(registry);
+        this.published = Counter.builder("product.outbox.published")
+                .description("Outbox events published; its rate is the relay throughput")
+                .register(registry);
+        this.failed = Counter.builder("product.outbox.failed")
+                .description("Outbox event publish attempts that failed and will be retried")
+                .register(registry);
+        Gauge.builder("product.outbox.oldest.pending.age", oldestPendingAgeMs, age -> age.get() / 1000.0)
+                .description("Age of the oldest unpublished outbox event, in seconds")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * Relays batches until the outbox is drained, then waits {@code product.outbox.relay.poll-interval-ms}.
+     */
+    @Scheduled(fixedDelayString = "${product.outbox.relay.poll-interval-ms:500}")
+    public void relayPending() {
+        int count;
+        do {
+            count = relayBatch();
+        } while (count == batchSize); // A full batch suggests more events are waiting.
+        refreshOldestPendingAge();
+    }
+
+    /**
+     * Claims one batch of unpublished events, publishes them and marks the acknowledged ones as published.
+     * The claim and the marking are separate single-statement transactions, and the publishing runs outside
+     * both. Events that fail or time out stay unpublished, are released, and are retried by a later batch.
+     *
+     * @return The number of events published.
+     */
+    public int relayBatch() {
+        return batchDuration.record(() -> {
+            List<OutboxEvent> events = jdbcTemplate.query(CLAIM_SQL, EVENT_MAPPER, leaseMs, batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            events.sort(Comparator.comparingLong(OutboxEvent::id)); // RETURNING does not keep the claim order.
+            List<Long> publishedIds = publish(events);
+            Long[] claimedIds = events.stream().map(OutboxEvent::id).toArray(Long[]::new);
+            jdbcTemplate.update(COMPLETE_SQL, ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("bigint", publishedIds.toArray()));
+                ps.setArray(2, ps.getConnection().createArrayOf("bigint", claimedIds));
+            });
+            return publishedIds.size();
+        });
+    }
+
+    /**
+     * Publishes the events in ID order, concurrently across products, waiting for all acknowledgements.
+     * The publisher sends the events sharing an ordering key one after the other, and fails the ones queued
+     * behind a failed event, so a product's later events are never published before its earlier ones.
+     *
+     * @return The IDs of the events acknowledged by Pub/Sub.
+     */
+    private List<Long> publish(List<OutboxEvent> events) {
+        ConcurrentLinkedQueue<Long> publishedIds = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<String>> futures = new ArrayList<>(events.size());
+        Set<Long> rejectedProducts = new HashSet<>(); // Their later events wait for the next batch.
+        try {
+            for (OutboxEvent event : events) {
+                if (rejectedProducts.contains(event.productId())) {
+                    continue;
+                }
+                String orderingKey = Long.toString(event.productId());
+                PubsubMessage message = PubsubMessage.newBuilder()
+                        .setData(ByteString.copyFromUtf8(event.payload()))
+                        .putAllAttributes(Map.of(
+                                "event_type", event.eventType(),
+                                "product_id", orderingKey,
+                                "outbox_id", Long.toString(event.id())))
+                        .setOrderingKey(orderingKey)
+                        .build();
+                inFlight.acquire();
+                CompletableFuture<String> future;
+                try {
+                    future = pubSubTemplate.publish(topic, message);
+                } catch (RuntimeException e) {
+                    // Rejected before any request was sent, so no callback will release the permit.
+                    inFlight.release();
+                    failed.increment();
+                    rejectedProducts.add(event.productId());
+                    log.warn("Failed to publish outbox event {}; it will be retried", event.id(), e);
+                    continue;
+                }
+                futures.add(future.whenComplete((messageId, error) -> {
+                    inFlight.release();
+                    if (error == null) {
+                        publishedIds.add(event.id());
+                        published.increment();
+                        lag.record(Duration.between(event.createdAt(), Instant.now()));
+                    } else {
+                        failed.increment();
+                        // The publisher pauses a key after a failure; resumed for the next batch's retry.
+                        publisherFactory.createPublisher(topic).resumePublish(orderingKey);
+                        log.warn("Failed to publish outbox event {}; it will be retried", event.id(), error);
+                    }
+                }));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Individual failures were counted above; the other events of the batch are still marked.
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for Pub/Sub acknowledgements; unacknowledged events will be retried");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Marks what was acknowledged so far, then stops.
+        }
+        return new ArrayList<>(publishedIds);
+    }
+
+    private void refreshOldestPendingAge() {
+        List<OffsetDateTime> oldest = jdbcTemplate.query(
+                "SELECT created_at FROM product_outbox WHERE published_at IS NULL ORDER BY id LIMIT 1",
+                (rs, rowNum) -> rs.getObject("created_at", OffsetDateTime.class));
+        oldestPendingAgeMs.set(oldest.isEmpty() ? 0
+                : Math.max(0, Duration.between(oldest.get(0).toInstant(), Instant.now()).toMillis()));
+    }
+
+    /**
+     * An outbox row; the payload is the JSON representation of the product.
+     */
+    private record OutboxEvent(long id, String eventType, long productId, String payload, Instant createdAt) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.example;
+
+import java.time.Instant;
+
+/**
+ * A row of the append-only {@code product_price_history} table: a product's price from a point in time on.
+ *
+ * @param productId     The product ID.
+ * @param price         The price from {@code changedAt} on.
+ * @param previousPrice The price before the change, or {@code null} if the product was created at {@code changedAt}.
+ * @param changedAt     When the price was set.
+ */
+public record ProductPriceChange(Long productId, double price, Double previousPrice, Instant changedAt) {
+}
@@ -0,0 +1,57 @@
+package com.example;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps monthly partitions of the {@code product_price_history} table ready ahead of time.
+ * <p>
+ * This job creates the partitions of the current month and of the next {@code product.price-history.months-ahead}
+ * months at startup and then every {@code product.price-history.maintenance-interval-ms}, leaving months of
+ * slack if it stops running. Price changes of a month without a partition go to the default partition, so
+ * writes never fail; when the month's partition is created, its rows are moved out of the default one.
+ * Rows of past months stay in the default partition, where they are still found, only less efficiently.
+ * The default partition also means the latest-price lookup probes every partition's index once, instead of
+ * reading the newest partitions first; see migration V10 for why writes that never fail are worth that.
+ * On by default; set {@code product.price-history.maintenance.enabled=false} when partitions are managed
+ * outside the application.
+ */
+@Component
+@ConditionalOnProperty(name = "product.price-history.maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductPriceHistoryMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductPriceHistoryMaintenance.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public ProductPriceHistoryMaintenance(JdbcTemplate jdbcTemplate,
+                                          @Value("${product.price-history.months-ahead:3}") int monthsAhead) {
+        if (monthsAhead < 1) {
+            throw new IllegalArgumentException("Price history months ahead must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    /**
+     * Creates the missing partitions, from the current month to {@code product.price-history.months-ahead}
+     * months ahead.
+     *
+     * @return The number of partitions created.
+     */
+    @Scheduled(fixedDelayString = "${product.price-history.maintenance-interval-ms:86400000}")
+    public int createPartitions() {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT product_price_history_create_partitions(?)", Integer.class, monthsAhead);
+        if (created != null && created > 0) {
+            log.info("Created {} product price history partitions", created);
+        }
+        return created == null ? 0 : created;
+    }
+}
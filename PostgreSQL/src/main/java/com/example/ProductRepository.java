@@ -1,14 +1,152 @@
 package com.example;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Data Access Layer for Product entities.
- * Extends JpaRepository to provide standard CRUD operations for {@link Product} objects.
+ * Extends JpaRepository to provide standard CRUD operations for {@link Product} objects,
+ * and {@link ProductRepositoryCustom} for bulk operations.
  */
 @Repository // Marks this interface as a Spring Data JPA repository.
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
     // Inherits methods like save(), findById(), findAll(), deleteById(), etc., from JpaRepository.
-    // No custom methods are defined here, meaning standard CRUD is sufficient.
+
+    /**
+     * Keyset pagination: seeks past the given ID using the primary key index instead of skipping rows
+     * with OFFSET, so every page costs the same no matter how deep it is.
+     *
+     * @param id    The last ID of the previous page.
+     * @param limit The maximum number of products to return.
+     * @return The next products in ID order.
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Updates a product with a single UPDATE statement, without loading it first. The update only
+     * applies if the product still has the expected version, and increments that version.
+     * <p>
+     * The persistence context is cleared afterwards, as it may hold a stale copy of the product.
+     *
+     * @param id      The ID of the product to update.
+     * @param version The version the caller last saw.
+     * @param name    The new name, or {@code null} to keep the current one.
+     * @param price   The new price, or {@code null} to keep the current one.
+     * @return 1 if the product was updated, 0 if it does not exist or its version has changed.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.name = coalesce(:name, p.name), p.price = coalesce(:price, p.price), "
+            + "p.version = p.version + 1 where p.id = :id and p.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id, @Param("version") long version,
+                               @Param("name") String name, @Param("price") Double price);
+
+    /**
+     * Deletes the given products with a single DELETE statement, without loading them.
+     *
+     * @param ids The IDs of the products to delete.
+     * @return The number of products deleted.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes all products whose price lies in the given range, with a single DELETE statement.
+     *
+     * @param minPrice The lowest price to delete, inclusive.
+     * @param maxPrice The highest price to delete, inclusive.
+     * @return The number of products deleted.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.price between :minPrice and :maxPrice")
+    int deleteByPriceRange(@Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice);
+
+    /**
+     * Deletes all products whose name matches a LIKE pattern, with a single DELETE statement.
+     *
+     * @param pattern The LIKE pattern, using {@code !} as escape character.
+     * @return The number of products deleted.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.name like :pattern escape '!'")
+    int deleteByNameLike(@Param("pattern") String pattern);
+
+    /**
+     * Finds products in a price range, cheapest first, using the price index.
+     *
+     * @param minPrice The lowest price, inclusive.
+     * @param maxPrice The highest price, inclusive.
+     * @param limit    The maximum number of results.
+     * @return Lightweight projections of the matching products.
+     */
+    @Query("select new com.example.ProductSummary(p.id, p.name, p.price) from Product p "
+            + "where p.price between :minPrice and :maxPrice order by p.price, p.id")
+    List<ProductSummary> findSummariesByPriceRange(@Param("minPrice") double minPrice,
+                                                   @Param("maxPrice") double maxPrice, Limit limit);
+
+    /**
+     * Finds products whose name matches a case-sensitive LIKE pattern, using the trigram index.
+     *
+     * @param pattern The LIKE pattern, using {@code !} as escape character.
+     * @param limit   The maximum number of results.
+     * @return Lightweight projections of the matching products, ordered by name.
+     */
+    @Query("select new com.example.ProductSummary(p.id, p.name, p.price) from Product p "
+            + "where p.name like :pattern escape '!' order by p.name, p.id")
+    List<ProductSummary> findSummariesByNameLike(@Param("pattern") String pattern, Limit limit);
+
+    /**
+     * Finds products whose name matches a case-insensitive LIKE pattern, using the trigram index.
+     *
+     * @param pattern The LIKE pattern, using {@code !} as escape character.
+     * @param limit   The maximum number of results.
+     * @return Lightweight projections of the matching products, ordered by name.
+     */
+    @Query("select new com.example.ProductSummary(p.id, p.name, p.price) from Product p "
+            + "where p.name ilike :pattern escape '!' order by p.name, p.id")
+    List<ProductSummary> findSummariesByNameILike(@Param("pattern") String pattern, Limit limit);
+
+    /**
+     * Finds the cheapest products by reading the price index in order, without sorting the table.
+     *
+     * @param limit The number of products to return.
+     * @return Lightweight projections of the cheapest products, cheapest first.
+     */
+    @Query("select new com.example.ProductSummary(p.id, p.name, p.price) from Product p order by p.price, p.id")
+    List<ProductSummary> findCheapestSummaries(Limit limit);
+
+    /**
+     * Streams lightweight projections of all products in price order, reading the price index through a
+     * server-side cursor. Must be called within a transaction, and the stream must be closed.
+     *
+     * @return Projections of all products, cheapest first.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.example.ProductSummary(p.id, p.name, p.price) from Product p order by p.price, p.id")
+    Stream<ProductSummary> streamSummariesByPrice();
+
+    /**
+     * Finds lightweight projections of the given products.
+     *
+     * @param ids The IDs of the products.
+     * @return Projections of the products that exist, in no particular order.
+     */
+    @Query("select new com.example.ProductSummary(p.id, p.name, p.price) from Product p where p.id in :ids")
+    List<ProductSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
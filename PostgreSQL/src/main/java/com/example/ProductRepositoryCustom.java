@@ -0,0 +1,102 @@
+package com.example;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Custom repository fragment for {@link Product} operations that need direct control over the
+ * persistence context or JDBC statements, which the derived Spring Data methods cannot express.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Persists new products using JDBC batching, flushing and clearing the persistence context
+     * after every batch so memory stays bounded regardless of the input size.
+     *
+     * @param products  The new (not yet persisted) products to insert.
+     * @param batchSize The number of rows sent to the database per JDBC batch.
+     * @return The same products, with their generated IDs assigned.
+     */
+    List<Product> insertInBatches(List<Product> products, int batchSize);
+
+    /**
+     * Streams all products in ID order through a server-side cursor. Only {@code fetchSize} rows are
+     * held by the driver at a time, and each product is detached as soon as it is read, so memory use
+     * stays flat regardless of the table size.
+     * <p>
+     * Must be called within a transaction, and the stream must be closed to release the cursor.
+     *
+     * @param fetchSize The number of rows fetched from the cursor per round trip.
+     * @return A lazily populated stream of detached products.
+     */
+    Stream<Product> streamAll(int fetchSize);
+
+    /**
+     * Sets the price of many products with batched UPDATE statements, incrementing their versions.
+     * Products that do not exist are skipped.
+     *
+     * @param prices    The new price for each product ID.
+     * @param batchSize The number of updates sent to the database per JDBC batch.
+     * @return The number of products updated.
+     */
+    int updatePricesInBatches(Map<Long, Double> prices, int batchSize);
+
+    /**
+     * Inserts or updates products by SKU with one {@code INSERT ... ON CONFLICT (sku) DO UPDATE} statement
+     * per chunk. Existing products whose name and price already match are left untouched, so replaying
+     * the same feed writes nothing and does not increment any version.
+     *
+     * @param products   The products to upsert, each with a distinct non-null SKU; their IDs are ignored.
+     * @param batchSize  The number of products per statement.
+     * @param changedIds Receives the ID of each inserted or updated product.
+     * @return The number of products inserted, updated and left unchanged.
+     */
+    ProductUpsertResult upsertBySku(Collection<Product> products, int batchSize, LongConsumer changedIds);
+
+    /**
+     * Reads the product statistics maintained by the {@code product_stats} triggers, without scanning the
+     * product table: the counters are summed over their shards, and the price bounds are read from the
+     * ends of the price index.
+     *
+     * @return The current product statistics.
+     */
+    ProductStatistics loadStatistics();
+
+    /**
+     * Finds the price a product had at a point in time, from the {@code product_price_history} table. Takes the
+     * latest row of each partition from its index and keeps the newest, so the cost depends on the number of
+     * partitions, not on the size of the history.
+     *
+     * @param productId The product ID.
+     * @param at        The point in time.
+     * @return The price in effect at {@code at}, or empty if the product did not exist yet, or never existed.
+     */
+    Optional<Double> findPriceAt(Long productId, Instant at);
+
+    /**
+     * Finds the price changes of one product in a time range, oldest first, from the {@code product_price_history}
+     * table. Only the monthly partitions overlapping the range are read.
+     *
+     * @param productId The product ID.
+     * @param from      The start of the range, inclusive.
+     * @param to        The end of the range, exclusive.
+     * @return The changes, including the product's creation if it falls in the range.
+     */
+    List<ProductPriceChange> findPriceChanges(Long productId, Instant from, Instant to);
+
+    /**
+     * Finds the price changes of all products in a time range, oldest first, from the {@code product_price_history}
+     * table. Only the monthly partitions overlapping the range are read, through their BRIN index.
+     *
+     * @param from  The start of the range, inclusive.
+     * @param to    The end of the range, exclusive.
+     * @param limit The maximum number of changes to return.
+     * @return The first changes of the range.
+     */
+    List<ProductPriceChange> findPriceChangesBetween(Instant from, Instant to, int limit);
+}
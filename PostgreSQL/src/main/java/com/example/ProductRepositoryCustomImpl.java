@@ -0,0 +1,241 @@
+package com.example;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link ProductRepositoryCustom}, picked up by Spring Data through the {@code Impl} suffix.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // The rows arrive as three array parameters, so a chunk is one statement with a fixed text whatever its size.
+    // New products take an ID from the pooled sequence, like the rows Hibernate inserts. Inserted rows are
+    // told from updated ones by their version, which an update always increments; rows skipped by the
+    // WHERE clause are not returned.
+    private static final String UPSERT_SQL = "INSERT INTO product AS p (id, sku, name, price, version) "
+            + "SELECT nextval('product_seq'), u.sku, u.name, u.price, 0 "
+            + "FROM unnest(?::varchar[], ?::varchar[], ?::float8[]) AS u (sku, name, price) "
+            + "ON CONFLICT (sku) DO UPDATE SET name = excluded.name, price = excluded.price, version = p.version + 1 "
+            + "WHERE (p.name, p.price) IS DISTINCT FROM (excluded.name, excluded.price) "
+            + "RETURNING p.id, p.version = 0 AS inserted";
+
+    private static final String PRICE_CHANGE_COLUMNS = "SELECT product_id, price, previous_price, changed_at "
+            + "FROM product_price_history ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note that the persistence context is cleared after each batch, so entities managed by a
+     * surrounding transaction become detached.
+     */
+    @Override
+    @Transactional
+    public List<Product> insertInBatches(List<Product> products, int batchSize) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize); // Enables JDBC batching for this session only.
+        try {
+            for (int i = 0; i < products.size(); i++) {
+                entityManager.persist(products.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush(); // Sends the pending inserts as one JDBC batch.
+                    entityManager.clear(); // Releases the flushed entities to keep memory bounded.
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+        return products;
+    }
+
+    @Override
+    public Stream<Product> streamAll(int fetchSize) {
+        return entityManager.createQuery("select p from Product p order by p.id", Product.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize) // Makes the PostgreSQL driver use a cursor.
+                .setHint(HibernateHints.HINT_READ_ONLY, true) // Skips dirty-checking snapshots.
+                .getResultStream()
+                .map(product -> {
+                    entityManager.detach(product); // Keeps the persistence context from growing with the stream.
+                    return product;
+                });
+    }
+
+    @Override
+    @Transactional
+    public int updatePricesInBatches(Map<Long, Double> prices, int batchSize) {
+        entityManager.flush(); // Pending JPA changes must reach the database before the JDBC updates.
+        int[] updated = {0};
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE product SET price = ?, version = version + 1 WHERE id = ?")) {
+                int pending = 0;
+                for (Map.Entry<Long, Double> entry : prices.entrySet()) {
+                    statement.setDouble(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        updated[0] += sum(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    updated[0] += sum(statement.executeBatch());
+                }
+            }
+        });
+        entityManager.clear(); // Managed copies of the updated products are now stale.
+        return updated[0];
+    }
+
+    @Override
+    @Transactional
+    public ProductUpsertResult upsertBySku(Collection<Product> products, int batchSize, LongConsumer changedIds) {
+        entityManager.flush(); // Pending JPA changes must reach the database before the upserts.
+        List<Product> rows = new ArrayList<>(products);
+        int[] counts = {0, 0}; // Inserted, updated.
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    List<Product> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                    String[] skus = new String[chunk.size()];
+                    String[] names = new String[chunk.size()];
+                    Double[] prices = new Double[chunk.size()];
+                    for (int i = 0; i < chunk.size(); i++) {
+                        skus[i] = chunk.get(i).getSku();
+                        names[i] = chunk.get(i).getName();
+                        prices[i] = chunk.get(i).getPrice();
+                    }
+                    statement.setArray(1, connection.createArrayOf("varchar", skus));
+                    statement.setArray(2, connection.createArrayOf("varchar", names));
+                    statement.setArray(3, connection.createArrayOf("float8", prices));
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            changedIds.accept(resultSet.getLong(1));
+                            counts[resultSet.getBoolean(2) ? 0 : 1]++;
+                        }
+                    }
+                }
+            }
+        });
+        entityManager.clear(); // Managed copies of the updated products are now stale.
+        return new ProductUpsertResult(counts[0], counts[1], rows.size() - counts[0] - counts[1]);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductStatistics loadStatistics() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> buckets = entityManager.createNativeQuery("SELECT bucket, sum(product_count), sum(price_sum) "
+                        + "FROM product_stats GROUP BY bucket HAVING sum(product_count) > 0 ORDER BY bucket")
+                .getResultList();
+        long count = 0;
+        BigDecimal priceSum = BigDecimal.ZERO;
+        List<ProductStatistics.PriceBucket> histogram = new ArrayList<>(buckets.size());
+        for (Object[] bucket : buckets) {
+            long bucketCount = ((Number) bucket[1]).longValue();
+            count += bucketCount;
+            priceSum = priceSum.add((BigDecimal) bucket[2]);
+            histogram.add(ProductStatistics.PriceBucket.of(((Number) bucket[0]).intValue(), bucketCount));
+        }
+        Object[] bounds = (Object[]) entityManager.createNativeQuery("SELECT min(price), max(price) FROM product")
+                .getSingleResult(); // Two index lookups on product_price_idx.
+        return new ProductStatistics(count,
+                count == 0 ? Double.NaN : priceSum.doubleValue() / count,
+                bounds[0] == null ? null : ((Number) bounds[0]).doubleValue(),
+                bounds[1] == null ? null : ((Number) bounds[1]).doubleValue(),
+                histogram);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Double> findPriceAt(Long productId, Instant at) {
+        entityManager.flush(); // Pending JPA changes must reach the database, and its triggers, before the JDBC query.
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT price FROM product_price_history "
+                    + "WHERE product_id = ? AND changed_at <= ? ORDER BY changed_at DESC LIMIT 1")) {
+                statement.setLong(1, productId);
+                statement.setObject(2, at.atOffset(ZoneOffset.UTC));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return resultSet.next() ? Optional.of(resultSet.getDouble(1)) : Optional.<Double>empty();
+                }
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductPriceChange> findPriceChanges(Long productId, Instant from, Instant to) {
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(PRICE_CHANGE_COLUMNS
+                    + "WHERE product_id = ? AND changed_at >= ? AND changed_at < ? ORDER BY changed_at")) {
+                statement.setLong(1, productId);
+                statement.setObject(2, from.atOffset(ZoneOffset.UTC));
+                statement.setObject(3, to.atOffset(ZoneOffset.UTC));
+                return readPriceChanges(statement);
+            }
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductPriceChange> findPriceChangesBetween(Instant from, Instant to, int limit) {
+        entityManager.flush();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(PRICE_CHANGE_COLUMNS
+                    + "WHERE changed_at >= ? AND changed_at < ? ORDER BY changed_at, product_id LIMIT ?")) {
+                statement.setObject(1, from.atOffset(ZoneOffset.UTC));
+                statement.setObject(2, to.atOffset(ZoneOffset.UTC));
+                statement.setInt(3, limit);
+                return readPriceChanges(statement);
+            }
+        });
+    }
+
+    private static List<ProductPriceChange> readPriceChanges(PreparedStatement statement) throws SQLException {
+        List<ProductPriceChange> changes = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                double previousPrice = resultSet.getDouble("previous_price");
+                boolean created = resultSet.wasNull(); // Must be checked before reading the next column.
+                changes.add(new ProductPriceChange(
+                        resultSet.getLong("product_id"),
+                        resultSet.getDouble("price"),
+                        created ? null : previousPrice,
+                        resultSet.getObject("changed_at", OffsetDateTime.class).toInstant()));
+            }
+        }
+        return changes;
+    }
+
+    private static int sum(int[] updateCounts) {
+        int total = 0;
+        for (int count : updateCounts) {
+            total += Math.max(count, 0); // SUCCESS_NO_INFO (-2) is not counted.
+        }
+        return total;
+    }
+}
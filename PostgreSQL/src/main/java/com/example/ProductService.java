@@ -1,23 +1,44 @@
 package com.example;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 /**
  * Service for managing product-related business logic.
  * Handles CRUD operations and applies business rules.
+ * Every product change is also recorded as an event in the same transaction, by database triggers
+ * on the {@code product} table, and published later by the {@link ProductOutboxRelay}. Price changes are
+ * likewise appended to the {@code product_price_history} table, so past prices can still be queried.
  */
 @Service
 public class ProductService {
 
     @Autowired // This annotation is redundant with @RequiredArgsConstructor on a final field.
     private final ProductRepository productRepository;
+    private final ProductCache productCache; // Read-through cache in front of findById.
+    private final ProductMetrics productMetrics; // Latency, row and statement metrics per operation.
+    private final int batchSize; // Default number of rows per JDBC batch for bulk inserts.
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductCache productCache, ProductMetrics productMetrics,
+                          @Value("${product.bulk.batch-size:500}") int batchSize) {
         this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productMetrics = productMetrics;
+        this.batchSize = batchSize;
     }
 
     /**
@@ -28,47 +49,329 @@ public class ProductService {
      * @throws IllegalArgumentException if product price is negative.
      */
     public Product createProduct(Product product) {
-        if (product.getPrice() < 0) {
-            throw new IllegalArgumentException("Product price cannot be negative"); // Business validation.
+        return productMetrics.record("createProduct", () -> {
+            validatePrice(product.getPrice());
+            Product savedProduct = productRepository.save(product);
+            productCache.invalidate(savedProduct.getId()); // Drops a cached "not found" for this ID, if any.
+            return savedProduct;
+        });
+    }
+
+    /**
+     * Creates many new products at once, using the configured {@code product.bulk.batch-size}.
+     *
+     * @param products The products to create.
+     * @return The created products, with their generated IDs.
+     * @throws IllegalArgumentException if any product price is negative.
+     * @see #createProducts(List, int)
+     */
+    public List<Product> createProducts(List<Product> products) {
+        return createProducts(products, batchSize);
+    }
+
+    /**
+     * Creates many new products at once, sending the inserts to the database in JDBC batches.
+     * All products are validated before anything is written, so an invalid product rejects the whole call.
+     *
+     * @param products  The products to create.
+     * @param batchSize The number of rows per JDBC batch.
+     * @return The created products, with their generated IDs.
+     * @throws IllegalArgumentException if any product price is negative, or if the batch size is not positive.
+     */
+    public List<Product> createProducts(List<Product> products, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
         }
-        return productRepository.save(product);
+        products.forEach(product -> validatePrice(product.getPrice())); // Validates everything up front.
+        List<Product> savedProducts = productRepository.insertInBatches(products, batchSize);
+        savedProducts.forEach(product -> productCache.invalidate(product.getId()));
+        return savedProducts;
     }
 
     /**
      * Retrieves all products.
+     * <p>
+     * This materializes the whole table in memory; prefer {@link #getProductsAfter(Long, int)} or
+     * {@link #streamAllProducts(int)} for large catalogs.
      *
      * @return A list of all products.
      */
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return productMetrics.record("getAllProducts", () -> {
+            List<Product> products = productRepository.findAll();
+            productMetrics.recordRows("getAllProducts", products.size());
+            return products;
+        });
     }
 
     /**
-     * Retrieves a product by its ID.
+     * Retrieves one page of products in ID order, using keyset pagination.
+     * To walk the whole table, pass the ID of the last product of each page to fetch the next one,
+     * until an empty page is returned.
+     *
+     * @param afterId  The ID of the last product of the previous page, or {@code null} for the first page.
+     * @param pageSize The maximum number of products to return.
+     * @return The products whose ID is greater than {@code afterId}, in ID order.
+     * @throws IllegalArgumentException if the page size is not positive.
+     */
+    @Transactional(readOnly = true)
+    public List<Product> getProductsAfter(Long afterId, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return productRepository.findByIdGreaterThanOrderByIdAsc(afterId == null ? Long.MIN_VALUE : afterId,
+                Limit.of(pageSize));
+    }
+
+    /**
+     * Streams all products in ID order through a server-side cursor, with flat memory use.
+     * <p>
+     * The caller must already run in a (preferably read-only) transaction and close the stream,
+     * for example with try-with-resources; the returned products are detached.
+     *
+     * @param fetchSize The number of rows fetched per database round trip.
+     * @return A stream of all products.
+     * @throws IllegalArgumentException if the fetch size is not positive.
+     */
+    @Transactional(propagation = Propagation.MANDATORY) // The cursor only lives as long as the caller's transaction.
+    public Stream<Product> streamAllProducts(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        return productRepository.streamAll(fetchSize);
+    }
+
+    /**
+     * Searches products in a price range, cheapest first.
+     *
+     * @param minPrice   The lowest price, inclusive.
+     * @param maxPrice   The highest price, inclusive.
+     * @param maxResults The maximum number of results.
+     * @return Projections of the matching products.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSummary> searchByPriceRange(double minPrice, double maxPrice, int maxResults) {
+        return productRepository.findSummariesByPriceRange(minPrice, maxPrice, Limit.of(maxResults));
+    }
+
+    /**
+     * Searches products whose name starts with the given prefix (case-sensitive), ordered by name.
+     *
+     * @param namePrefix The name prefix, matched literally.
+     * @param maxResults The maximum number of results.
+     * @return Projections of the matching products.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSummary> searchByNamePrefix(String namePrefix, int maxResults) {
+        return productRepository.findSummariesByNameLike(escapeLike(namePrefix) + "%", Limit.of(maxResults));
+    }
+
+    /**
+     * Searches products whose name contains the given text (case-insensitive), ordered by name.
+     *
+     * @param text       The text to look for, matched literally.
+     * @param maxResults The maximum number of results.
+     * @return Projections of the matching products.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSummary> searchByNameContaining(String text, int maxResults) {
+        return productRepository.findSummariesByNameILike("%" + escapeLike(text) + "%", Limit.of(maxResults));
+    }
+
+    /**
+     * Retrieves the cheapest products.
+     *
+     * @param count The number of products to return.
+     * @return Projections of the cheapest products, cheapest first.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSummary> getCheapestProducts(int count) {
+        return productRepository.findCheapestSummaries(Limit.of(count));
+    }
+
+    /**
+     * Retrieves the product count, average price, price bounds and price histogram.
+     * <p>
+     * The counters are kept up to date by database triggers in the transaction of every product change,
+     * including bulk and COPY loads, so this costs a few index lookups whatever the catalog size.
+     *
+     * @return The current product statistics.
+     */
+    @Transactional(readOnly = true)
+    public ProductStatistics getProductStatistics() {
+        return productRepository.loadStatistics();
+    }
+
+    /**
+     * Retrieves the price a product had at a point in time.
+     *
+     * @param id The ID of the product.
+     * @param at The point in time.
+     * @return The price in effect at {@code at}, or empty if the product did not exist at that time.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Double> getPriceAt(Long id, Instant at) {
+        return productRepository.findPriceAt(id, at);
+    }
+
+    /**
+     * Retrieves the price changes of a product in a time range, oldest first.
+     *
+     * @param id   The ID of the product.
+     * @param from The start of the range, inclusive.
+     * @param to   The end of the range, exclusive.
+     * @return The price changes, starting with the product's creation if it falls in the range.
+     * @throws IllegalArgumentException if the range ends before it starts.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductPriceChange> getPriceChanges(Long id, Instant from, Instant to) {
+        validateRange(from, to);
+        return productRepository.findPriceChanges(id, from, to);
+    }
+
+    /**
+     * Retrieves the price changes of all products in a time range, oldest first.
+     * To walk a long range, call again from the time of the last change returned.
+     *
+     * @param from       The start of the range, inclusive.
+     * @param to         The end of the range, exclusive.
+     * @param maxResults The maximum number of changes to return.
+     * @return The first price changes of the range.
+     * @throws IllegalArgumentException if the range ends before it starts.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductPriceChange> getPriceChangesBetween(Instant from, Instant to, int maxResults) {
+        validateRange(from, to);
+        return productRepository.findPriceChangesBetween(from, to, maxResults);
+    }
+
+    /**
+     * Retrieves a product by its ID, from the {@link ProductCache} when possible.
+     * The returned product is a detached copy: changing it affects neither the cache nor the database.
      *
      * @param id The ID of the product.
      * @return An Optional containing the product if found, or empty otherwise.
      */
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productMetrics.record("getProductById", () -> {
+            Optional<Product> product = productCache.get(id, productRepository::findById);
+            productMetrics.recordRows("getProductById", product.isPresent() ? 1 : 0);
+            return product;
+        });
     }
 
     /**
-     * Updates an existing product.
+     * Updates an existing product. If the price changes, the previous one is kept in the price history.
+     * <p>
+     * The product is read and written again in this call, so the version check only guards against changes
+     * made between that read and the write. It does not detect changes made since the caller's own read:
+     * use {@link #patchProduct} with the version the caller read for that. The read and the write share one
+     * transaction, so with read/write splitting both run on the primary, never on a lagging replica.
      *
      * @param id             The ID of the product to update.
      * @param updatedProduct The product data to apply.
      * @return The updated product.
      * @throws RuntimeException if the product is not found.
      */
+    @Transactional
     public Product updateProduct(Long id, Product updatedProduct) {
-        Product savedProduct = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id)); // Ensures product exists.
+        return productMetrics.record("updateProduct", () -> {
+            Product savedProduct = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id)); // Ensures product exists.
+
+            savedProduct.setName(updatedProduct.getName()); // Updates relevant fields.
+            savedProduct.setPrice(updatedProduct.getPrice());
+            productRepository.save(savedProduct); // Persists changes.
+            productCache.invalidate(id); // Evicts the stale cached copy.
+            return savedProduct;
+        });
+    }
+
+    /**
+     * Partially updates a product with a single UPDATE statement, without loading it first.
+     * The update only applies if nobody else changed the product since the caller read it.
+     *
+     * @param id              The ID of the product to update.
+     * @param expectedVersion The version of the product the caller last read.
+     * @param name            The new name, or {@code null} to keep the current one.
+     * @param price           The new price, or {@code null} to keep the current one.
+     * @return The new version of the product.
+     * @throws IllegalArgumentException           if the new price is negative.
+     * @throws RuntimeException                   if the product is not found.
+     * @throws OptimisticLockingFailureException if the product was modified since {@code expectedVersion}.
+     */
+    @Transactional
+    public long patchProduct(Long id, long expectedVersion, String name, Double price) {
+        if (price != null) {
+            validatePrice(price);
+        }
+        int updated = productRepository.updateIfVersionMatches(id, expectedVersion, name, price);
+        productCache.invalidate(id);
+        if (updated == 0) {
+            // Only the failure path pays for a second query, to tell the two causes apart.
+            if (!productRepository.existsById(id)) {
+                throw new RuntimeException("Product not found with ID: " + id);
+            }
+            throw new OptimisticLockingFailureException(
+                    "Product with ID " + id + " was modified concurrently (expected version " + expectedVersion + ")");
+        }
+        return expectedVersion + 1;
+    }
+
+    /**
+     * Sets the price of many products at once, for example to reprice a whole category,
+     * using batched UPDATE statements of the configured {@code product.bulk.batch-size}.
+     * <p>
+     * This is an unconditional overwrite, but it increments each product's version, so concurrent
+     * {@link #patchProduct} calls based on an older version fail instead of silently undoing the new price.
+     *
+     * @param newPrices The new price for each product ID.
+     * @return The number of products updated; unknown IDs are skipped.
+     * @throws IllegalArgumentException if any new price is missing or negative.
+     */
+    @Transactional
+    public int repriceProducts(Map<Long, Double> newPrices) {
+        newPrices.forEach((id, price) -> { // Validates everything up front.
+            if (price == null) {
+                throw new IllegalArgumentException("Product price is missing for ID: " + id);
+            }
+            validatePrice(price);
+        });
+        int updated = productRepository.updatePricesInBatches(newPrices, batchSize);
+        newPrices.keySet().forEach(productCache::invalidate);
+        return updated;
+    }
 
-        savedProduct.setName(updatedProduct.getName()); // Updates relevant fields.
-        savedProduct.setPrice(updatedProduct.getPrice());
-        productRepository.save(savedProduct); // Persists changes.
-        return savedProduct;
+    /**
+     * Inserts or updates many products by SKU, for example to load a supplier feed, with one
+     * {@code INSERT ... ON CONFLICT} statement per chunk of the configured {@code product.bulk.batch-size}.
+     * <p>
+     * Products with an unknown SKU are created; products whose name or price differ are updated and
+     * their versions incremented; products that already match are not written at all. The upsert is
+     * idempotent, so a feed that failed half-way can simply be replayed. When a SKU appears more than
+     * once, its last occurrence wins. Chunks are sent in SKU order, so concurrent upserts of
+     * overlapping feeds lock rows in the same order instead of deadlocking.
+     *
+     * @param products The products to upsert; their IDs are ignored.
+     * @return The number of products inserted, updated and left unchanged, counted once per distinct SKU.
+     * @throws IllegalArgumentException if any SKU is blank or any price is negative.
+     */
+    @Transactional
+    public ProductUpsertResult upsertProducts(List<Product> products) {
+        return productMetrics.record("upsertProducts", () -> {
+            Map<String, Product> bySku = new TreeMap<>();
+            for (Product product : products) { // Validates everything up front.
+                if (product.getSku() == null || product.getSku().isBlank()) {
+                    throw new IllegalArgumentException("Product SKU must not be blank");
+                }
+                validatePrice(product.getPrice());
+                bySku.put(product.getSku(), product);
+            }
+            ProductUpsertResult result =
+                    productRepository.upsertBySku(bySku.values(), batchSize, productCache::invalidate);
+            productMetrics.recordRows("upsertProducts", result.inserted() + result.updated());
+            return result;
+        });
     }
 
     /**
@@ -77,6 +380,87 @@ public class ProductService {
      * @param id The ID of the product to delete.
      */
     public void deleteProduct(Long id) {
-        productRepository.deleteById(id);
+        productMetrics.record("deleteProduct", () -> {
+            productRepository.deleteById(id);
+            productCache.invalidate(id); // Evicts the stale cached copy.
+        });
+    }
+
+    /**
+     * Deletes many products by ID without loading them, with one DELETE statement per chunk of
+     * the configured {@code product.bulk.batch-size} IDs.
+     *
+     * @param ids The IDs of the products to delete; unknown IDs are ignored.
+     * @return The number of products deleted.
+     */
+    @Transactional
+    public int deleteProducts(Collection<Long> ids) {
+        List<Long> idList = new ArrayList<>(ids);
+        int deleted = 0;
+        for (int from = 0; from < idList.size(); from += batchSize) {
+            List<Long> chunk = idList.subList(from, Math.min(from + batchSize, idList.size()));
+            deleted += productRepository.deleteByIds(chunk); // Keeps each statement's parameter list bounded.
+        }
+        ids.forEach(productCache::invalidate);
+        return deleted;
+    }
+
+    /**
+     * Deletes all products whose price lies in the given range, with a single DELETE statement.
+     *
+     * @param minPrice The lowest price to delete, inclusive.
+     * @param maxPrice The highest price to delete, inclusive.
+     * @return The number of products deleted.
+     */
+    @Transactional
+    public int deleteProductsByPriceRange(double minPrice, double maxPrice) {
+        int deleted = productRepository.deleteByPriceRange(minPrice, maxPrice);
+        productCache.invalidateAll(); // The deleted IDs are unknown, so no cached entry can be trusted.
+        return deleted;
+    }
+
+    /**
+     * Deletes all products whose name starts with the given prefix, with a single DELETE statement.
+     *
+     * @param namePrefix The name prefix, matched literally and case-sensitively.
+     * @return The number of products deleted.
+     * @throws IllegalArgumentException if the prefix is empty, which would delete every product.
+     */
+    @Transactional
+    public int deleteProductsByNamePrefix(String namePrefix) {
+        if (namePrefix == null || namePrefix.isEmpty()) {
+            throw new IllegalArgumentException("Name prefix must not be empty");
+        }
+        int deleted = productRepository.deleteByNameLike(escapeLike(namePrefix) + "%");
+        productCache.invalidateAll(); // The deleted IDs are unknown, so no cached entry can be trusted.
+        return deleted;
+    }
+
+    /**
+     * Escapes LIKE wildcards so the value is matched literally, using {@code !} as escape character.
+     */
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private static void validateRange(Instant from, Instant to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Time range must not end before it starts");
+        }
+    }
+
+    /**
+     * Applies the price validation shared by all create paths, including {@link ProductCopyLoader}.
+     *
+     * @param price The price to validate.
+     * @throws IllegalArgumentException if the price is negative, or not a finite number.
+     */
+    static void validatePrice(double price) {
+        if (!Double.isFinite(price)) { // NaN would slip through the comparison below.
+            throw new IllegalArgumentException("Product price must be a finite number");
+        }
+        if (price < 0) {
+            throw new IllegalArgumentException("Product price cannot be negative"); // Business validation.
+        }
     }
 }
\ No newline at end of file
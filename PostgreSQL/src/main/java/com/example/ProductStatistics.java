@@ -0,0 +1,40 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Aggregate statistics over all products, read from incrementally maintained counters.
+ *
+ * @param count        The number of products.
+ * @param averagePrice The average product price, or {@code NaN} if there are no products.
+ * @param minPrice     The lowest product price, or {@code null} if there are no products.
+ * @param maxPrice     The highest product price, or {@code null} if there are no products.
+ * @param histogram    The price distribution, in ascending price order; empty buckets are omitted.
+ */
+public record ProductStatistics(long count, double averagePrice, Double minPrice, Double maxPrice,
+                                List<PriceBucket> histogram) {
+
+    /**
+     * The number of products in a price range.
+     *
+     * @param lowerBound The lowest price of the bucket, inclusive.
+     * @param upperBound The highest price of the bucket, exclusive.
+     * @param count      The number of products in the bucket.
+     */
+    public record PriceBucket(double lowerBound, double upperBound, long count) {
+
+        /**
+         * Returns the bucket of the given index, as computed by the {@code product_price_bucket} SQL function:
+         * {@code [0, 1)}, then {@code [2^(index-1), 2^index)}; the last bucket is open-ended.
+         *
+         * @param index The bucket index, from 0 to 63.
+         * @param count The number of products in the bucket.
+         * @return The bucket.
+         */
+        static PriceBucket of(int index, long count) {
+            double lowerBound = index == 0 ? 0 : Math.scalb(1.0, index - 1);
+            double upperBound = index == 63 ? Double.POSITIVE_INFINITY : Math.scalb(1.0, index);
+            return new PriceBucket(lowerBound, upperBound, count);
+        }
+    }
+}
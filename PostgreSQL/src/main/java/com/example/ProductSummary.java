@@ -0,0 +1,12 @@
+package com.example;
+
+/**
+ * Read-only projection of a {@link Product}, returned by search queries.
+ * Unlike entities, projections are not tracked by the persistence context, so large result sets stay cheap.
+ *
+ * @param id    The product ID.
+ * @param name  The product name.
+ * @param price The product price.
+ */
+public record ProductSummary(Long id, String name, double price) {
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * Outcome of a bulk upsert by SKU.
+ *
+ * @param inserted  The number of new products.
+ * @param updated   The number of existing products whose name or price changed.
+ * @param unchanged The number of existing products left untouched, as they already had the given values.
+ */
+public record ProductUpsertResult(int inserted, int updated, int unchanged) {
+}
@@ -0,0 +1,38 @@
+package com.example;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Opt-in R2DBC stack backing {@link ReactiveProductService}, enabled per deployment with
+ * {@code product.reactive.enabled=true}.
+ * <p>
+ * The connection is configured with {@code product.r2dbc.url} (use an {@code r2dbc:pool:postgresql://...}
+ * URL for a connection pool), {@code product.r2dbc.username} and {@code product.r2dbc.password}.
+ * The schema is still managed by the Flyway migrations over JDBC.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.reactive.enabled", havingValue = "true")
+public class ReactivePersistenceConfiguration {
+
+    @Bean
+    public ConnectionFactory connectionFactory(@Value("${product.r2dbc.url}") String url,
+                                               @Value("${product.r2dbc.username}") String username,
+                                               @Value("${product.r2dbc.password}") String password) {
+        return ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking data access for {@link Product} rows over R2DBC, the reactive counterpart of {@link ProductRepository}.
+ * Every operation is a single SQL statement; IDs come from the same {@code product_seq} sequence as JPA.
+ */
+@Repository
+@ConditionalOnProperty(name = "product.reactive.enabled", havingValue = "true")
+public class ReactiveProductRepository {
+
+    private static final String COLUMNS = "id, sku, name, price, version";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveProductRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Inserts a new product.
+     *
+     * @param product The product to insert, with its SKU if any; its ID is ignored.
+     * @return The inserted product, with its generated ID and initial version.
+     */
+    public Mono<Product> insert(Product product) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO product (" + COLUMNS + ") "
+                + "VALUES (nextval('product_seq'), :sku, :name, :price, 0) RETURNING " + COLUMNS);
+        return bindString(bindString(spec, "sku", product.getSku()), "name", product.getName())
+                .bind("price", product.getPrice())
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    /**
+     * Streams all products in ID order. Rows are fetched from the database as the subscriber requests
+     * them, {@code fetchSize} rows at a time, so a slow subscriber does not cause rows to pile up in memory.
+     *
+     * @param fetchSize The number of rows fetched per round trip.
+     * @return The products.
+     */
+    public Flux<Product> findAll(int fetchSize) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM product ORDER BY id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveProductRepository::toProduct)
+                .all();
+    }
+
+    /**
+     * @param id The ID of the product.
+     * @return The product, or empty if not found.
+     */
+    public Mono<Product> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM product WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    /**
+     * Sets the name and price of a product with a single UPDATE statement, incrementing its version.
+     * Its SKU is left unchanged.
+     *
+     * @param id      The ID of the product.
+     * @param name    The new name.
+     * @param price   The new price.
+     * @return The updated product, or empty if not found.
+     */
+    public Mono<Product> update(Long id, String name, double price) {
+        return bindString(databaseClient.sql("UPDATE product SET name = :name, price = :price, version = version + 1 "
+                        + "WHERE id = :id RETURNING " + COLUMNS), "name", name)
+                .bind("price", price)
+                .bind("id", id)
+                .map(ReactiveProductRepository::toProduct)
+                .one();
+    }
+
+    /**
+     * @param id The ID of the product to delete.
+     * @return The number of deleted rows (0 or 1).
+     */
+    public Mono<Long> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM product WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindString(DatabaseClient.GenericExecuteSpec spec, String parameter,
+                                                                String value) {
+        return value == null ? spec.bindNull(parameter, String.class) : spec.bind(parameter, value);
+    }
+
+    private static Product toProduct(Readable row) {
+        Product product = new Product(row.get("id", Long.class), row.get("sku", String.class),
+                row.get("name", String.class), row.get("price", Double.class));
+        product.setVersion(row.get("version", Long.class));
+        return product;
+    }
+}
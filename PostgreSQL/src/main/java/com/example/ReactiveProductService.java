@@ -0,0 +1,84 @@
+package com.example;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link ProductService} for non-blocking callers, backed by R2DBC.
+ * Applies the same business rules, but reports failures as error signals instead of exceptions.
+ */
+@Service
+@ConditionalOnProperty(name = "product.reactive.enabled", havingValue = "true")
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final ProductCache productCache; // Kept consistent with writes made through this service.
+    private final int fetchSize; // Rows fetched per round trip when streaming all products.
+
+    public ReactiveProductService(ReactiveProductRepository reactiveProductRepository, ProductCache productCache,
+                                  @Value("${product.r2dbc.fetch-size:500}") int fetchSize) {
+        this.reactiveProductRepository = reactiveProductRepository;
+        this.productCache = productCache;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Creates a new product after applying business validations.
+     *
+     * @param product The product to create.
+     * @return The created product, or an {@link IllegalArgumentException} error if its price is negative.
+     */
+    public Mono<Product> createProduct(Product product) {
+        return Mono.defer(() -> {
+            ProductService.validatePrice(product.getPrice()); // Thrown here, it becomes an error signal.
+            return reactiveProductRepository.insert(product);
+        }).doOnNext(savedProduct -> productCache.invalidate(savedProduct.getId()));
+    }
+
+    /**
+     * Streams all products with backpressure, instead of materializing them in a list.
+     *
+     * @return The products, in ID order.
+     */
+    public Flux<Product> getAllProducts() {
+        return reactiveProductRepository.findAll(fetchSize);
+    }
+
+    /**
+     * Retrieves a product by its ID.
+     *
+     * @param id The ID of the product.
+     * @return The product, or empty if not found.
+     */
+    public Mono<Product> getProductById(Long id) {
+        return reactiveProductRepository.findById(id);
+    }
+
+    /**
+     * Updates an existing product's name and price.
+     *
+     * @param id             The ID of the product to update.
+     * @param updatedProduct The product data to apply.
+     * @return The updated product, or a {@link RuntimeException} error if the product is not found.
+     */
+    public Mono<Product> updateProduct(Long id, Product updatedProduct) {
+        return reactiveProductRepository.update(id, updatedProduct.getName(), updatedProduct.getPrice())
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Product not found with ID: " + id)))
+                .doOnNext(savedProduct -> productCache.invalidate(id));
+    }
+
+    /**
+     * Deletes a product by its ID.
+     *
+     * @param id The ID of the product to delete.
+     * @return Completes once the product is deleted.
+     */
+    public Mono<Void> deleteProduct(Long id) {
+        return reactiveProductRepository.deleteById(id)
+                .doOnNext(deleted -> productCache.invalidate(id))
+                .then();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Opt-in read/write splitting: read-only transactions use a replica pool, while writes use the primary pool.
+ * This covers {@link ProductService#getAllProducts()} and {@link ProductService#getProductById(Long)},
+ * whose repository calls run in Spring Data's read-only transactions, and the service's search and
+ * pagination methods, which are marked {@code @Transactional(readOnly = true)}.
+ * <p>
+ * Enabled with {@code product.datasource.routing.enabled=true}. Each pool is a HikariCP data source
+ * configured under {@code product.datasource.primary.*} and {@code product.datasource.replica.*}
+ * (for example {@code jdbc-url}, {@code username}, {@code password}, {@code maximum-pool-size}).
+ * {@code product.datasource.routing.read-your-writes-window-ms} keeps a client's reads on the primary
+ * for that long after its write commits (0 by default); clients are bound with
+ * {@link ReadWriteRoutingDataSource#callAs}, and default to the current thread. With virtual threads enabled, each pool is guarded by a
+ * {@link ConnectionPermitDataSource}, as {@link VirtualThreadConfiguration} does for the single pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.datasource.routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("product.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @ConfigurationProperties("product.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setReadOnly(true); // Guards against writes reaching the replica by mistake.
+        return replica;
+    }
+
+    /**
+     * The data source used by JPA, Flyway and the rest of the application.
+     * The lazy proxy defers fetching a connection until the first statement, when the transaction's
+     * read-only flag is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+                                 @Value("${product.datasource.routing.read-your-writes-window-ms:0}") long readYourWritesWindowMs,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                 @Value("${product.datasource.permit-timeout-ms:30000}") long permitTimeoutMs) {
+        DataSource primary = virtualThreads
+                ? ConnectionPermitDataSource.forPool(primaryDataSource, permitTimeoutMs) : primaryDataSource;
+        DataSource replica = virtualThreads
+                ? ConnectionPermitDataSource.forPool(replicaDataSource, permitTimeoutMs) : replicaDataSource;
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primary, replica, Duration.ofMillis(readYourWritesWindowMs)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Routes connections of read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * The routing decision is taken when the connection is actually needed, so this data source must be
+ * wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the read-only
+ * flag of a transaction is only known after the transaction has begun.
+ * <p>
+ * For read-your-writes consistency, reads of a client that committed a write within the last
+ * {@code readYourWritesWindow} stay on the primary, so they do not miss changes the replica has not
+ * received yet. The window starts when the write commits, not when it began, so long transactions do not
+ * use it up. A client is whatever the caller binds with {@link #callAs} around its work, for example the
+ * session or user of an HTTP request, so its next request is protected whichever thread serves it. Work
+ * done outside {@link #callAs} is tracked per thread only: a later request served by another thread, or
+ * by a new virtual thread, reads from the replica right away.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Lookup keys of the two target data sources.
+     */
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Object> currentClient = new ThreadLocal<>(); // Bound by callAs.
+
+    private final long readYourWritesWindowNanos;
+    private final Cache<Object, Long> lastCommitNanosByClient; // Entries expire with the window.
+    private final ThreadLocal<Long> lastCommitNanos = new ThreadLocal<>(); // For work done outside callAs.
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      Duration readYourWritesWindow) {
+        this.readYourWritesWindowNanos = readYourWritesWindow.toNanos();
+        this.lastCommitNanosByClient = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .build();
+        setTargetDataSources(Map.<Object, Object>of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet(); // Resolves the targets, as this class is not registered as a bean itself.
+    }
+
+    /**
+     * Runs an action on behalf of a client, so that its reads see the writes the same client committed
+     * within the read-your-writes window, whichever thread made them.
+     *
+     * @param clientKey The client, for example a session or user ID; compared with {@code equals}.
+     * @param action    The action.
+     * @param <T>       The type of the action's result.
+     * @return The action's result.
+     */
+    public static <T> T callAs(Object clientKey, Supplier<T> action) {
+        Object previous = currentClient.get();
+        currentClient.set(clientKey);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                currentClient.remove();
+            } else {
+                currentClient.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (readYourWritesWindowNanos > 0) {
+                recordCommit(currentClient.get());
+            }
+            return Target.PRIMARY;
+        }
+        Object client = currentClient.get();
+        Long lastCommit = client != null ? lastCommitNanosByClient.getIfPresent(client) : lastCommitNanos.get();
+        if (lastCommit != null && System.nanoTime() - lastCommit < readYourWritesWindowNanos) {
+            return Target.PRIMARY; // Recent write by this client: the replica may still lag behind.
+        }
+        return Target.REPLICA;
+    }
+
+    /**
+     * Starts the client's window when the current transaction commits, or right away outside a transaction,
+     * where every statement commits on its own.
+     */
+    private void recordCommit(Object client) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stamp(client);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stamp(client);
+            }
+        });
+    }
+
+    private void stamp(Object client) {
+        if (client != null) {
+            lastCommitNanosByClient.put(client, System.nanoTime());
+        } else {
+            lastCommitNanos.set(System.nanoTime());
+        }
+    }
+}
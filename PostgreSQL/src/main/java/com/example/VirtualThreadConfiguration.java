@@ -0,0 +1,56 @@
+package com.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Opt-in virtual-thread execution mode, enabled with Spring Boot's {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * Spring Boot then serves web requests and runs its task executors on virtual threads. Since blocking on
+ * JDBC no longer ties up a platform thread, the connection pool becomes the real concurrency limit, so
+ * the data source used by the application is a {@link ConnectionPermitDataSource} sized like the pool.
+ * {@code product.datasource.permit-timeout-ms} bounds how long a request waits for a connection.
+ * <p>
+ * The HikariCP pool stays a bean of its own, configured like Spring Boot's under {@code spring.datasource.*},
+ * so the pool metrics and anything else needing the {@link HikariDataSource} still find it. With
+ * {@code product.datasource.routing.enabled=true}, {@link ReadWriteRoutingConfiguration} guards its two pools
+ * instead.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    /**
+     * The connection pool, created as Spring Boot would have, which backs off once another data source is defined.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "product.datasource.routing.enabled", havingValue = "false", matchIfMissing = true)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource hikariDataSource(DataSourceProperties properties) {
+        HikariDataSource hikariDataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        if (StringUtils.hasText(properties.getName())) {
+            hikariDataSource.setPoolName(properties.getName());
+        }
+        return hikariDataSource;
+    }
+
+    /**
+     * The data source used by JPA, Flyway and the rest of the application.
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "product.datasource.routing.enabled", havingValue = "false", matchIfMissing = true)
+    public DataSource dataSource(HikariDataSource hikariDataSource,
+                                 @Value("${product.datasource.permit-timeout-ms:30000}") long permitTimeoutMs) {
+        return ConnectionPermitDataSource.forPool(hikariDataSource, permitTimeoutMs);
+    }
+}
@@ -0,0 +1,46 @@
+-- Adds a DEFAULT partition to product_price_history. This supersedes the comment in V7 that says there is
+-- "deliberately no DEFAULT partition"; V7 cannot be edited once applied, so the corrected rationale is here.
+--
+-- Without it, every product write fails once the months created ahead of time run out, because the price
+-- history trigger has nowhere to put its row. That happens whenever ProductPriceHistoryMaintenance has not
+-- created the partitions in time: disabled, stopped for months, or running against a database migrated long
+-- ago, such as the test template. The default partition catches those rows and is normally empty.
+--
+-- V7 left it out so that the planner could read the monthly partitions newest first and stop at the first
+-- match. That only ever helped the latest-price lookup: with a default partition, the planner probes the index
+-- of every partition once instead. That stays a handful of index descents per retained month, independent of
+-- the size of the history, and is far cheaper than failing product writes.
+CREATE TABLE product_price_history_default PARTITION OF product_price_history DEFAULT;
+
+-- Attaching a partition checks that the default partition holds none of its rows, so the rows written there
+-- for the new month are moved first. The default partition is locked against writers from the move until the
+-- attach commits, which only delays the product writes of months that had no partition anyway.
+CREATE OR REPLACE FUNCTION product_price_history_create_partitions(months_ahead INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    this_month     TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC'); -- Partition bounds are UTC months.
+    month_start    TIMESTAMPTZ;
+    month_end      TIMESTAMPTZ;
+    partition_name TEXT;
+    created        INTEGER := 0;
+BEGIN
+    FOR i IN 0..months_ahead
+        LOOP
+            month_start := (this_month + make_interval(months => i)) AT TIME ZONE 'UTC';
+            month_end := (this_month + make_interval(months => i + 1)) AT TIME ZONE 'UTC';
+            partition_name := 'product_price_history_' || to_char(this_month + make_interval(months => i), 'YYYYMM');
+            CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+            EXECUTE format('CREATE TABLE %I (LIKE product_price_history)', partition_name);
+            LOCK TABLE product_price_history_default IN SHARE ROW EXCLUSIVE MODE;
+            EXECUTE format('WITH moved AS (DELETE FROM product_price_history_default '
+                               || 'WHERE changed_at >= %L AND changed_at < %L RETURNING *) '
+                               || 'INSERT INTO %I SELECT * FROM moved',
+                           month_start, month_end, partition_name);
+            EXECUTE format('ALTER TABLE product_price_history ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, month_end);
+            created := created + 1;
+        END LOOP;
+    RETURN created;
+END
+$$;
@@ -0,0 +1,3 @@
+-- Serves ProductOutboxRelay's check that no earlier event of the same product is still being relayed by
+-- another instance, which keeps each product's events in commit order across relays.
+CREATE INDEX product_outbox_unpublished_product_idx ON product_outbox (product_id, id) WHERE published_at IS NULL;
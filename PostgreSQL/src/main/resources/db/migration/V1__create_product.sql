@@ -0,0 +1,11 @@
+-- Product catalog, matching the Product entity.
+-- The sequence increment must match the @SequenceGenerator allocation size (pooled optimizer).
+CREATE SEQUENCE product_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE product
+(
+    id      BIGINT           NOT NULL PRIMARY KEY,
+    name    VARCHAR(255),
+    price   DOUBLE PRECISION NOT NULL,
+    version BIGINT           NOT NULL DEFAULT 0
+);
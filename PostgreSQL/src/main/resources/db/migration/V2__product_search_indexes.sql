@@ -0,0 +1,6 @@
+-- Supports price range filters and price-ordered top-N queries.
+CREATE INDEX product_price_idx ON product (price, id);
+
+-- Supports prefix and case-insensitive substring searches on names (LIKE / ILIKE).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX product_name_trgm_idx ON product USING gin (name gin_trgm_ops);
@@ -0,0 +1,49 @@
+-- Transactional outbox of product change events, relayed to Pub/Sub by ProductOutboxRelay.
+CREATE TABLE product_outbox
+(
+    id           BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    event_type   VARCHAR(16) NOT NULL, -- CREATED, UPDATED or DELETED.
+    product_id   BIGINT      NOT NULL,
+    payload      JSONB       NOT NULL, -- The product state after the change (before it, for DELETED).
+    created_at   TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp(),
+    published_at TIMESTAMPTZ
+);
+-- Keeps the relay's "oldest unpublished events first" scan proportional to the backlog, not the table.
+CREATE INDEX product_outbox_unpublished_idx ON product_outbox (id) WHERE published_at IS NULL;
+
+-- Records one event per changed row, in the transaction of the change. Statement-level triggers with
+-- transition tables turn bulk statements (batch inserts, COPY merges, set-based deletes) into one INSERT.
+CREATE FUNCTION product_outbox_capture() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO product_outbox (event_type, product_id, payload)
+        SELECT 'DELETED', o.id, jsonb_build_object('id', o.id, 'name', o.name, 'price', o.price, 'version', o.version)
+        FROM old_rows o
+        ORDER BY o.id;
+    ELSE
+        INSERT INTO product_outbox (event_type, product_id, payload)
+        SELECT CASE TG_OP WHEN 'INSERT' THEN 'CREATED' ELSE 'UPDATED' END, n.id,
+               jsonb_build_object('id', n.id, 'name', n.name, 'price', n.price, 'version', n.version)
+        FROM new_rows n
+        ORDER BY n.id;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER product_outbox_insert
+    AFTER INSERT ON product
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_outbox_capture();
+
+CREATE TRIGGER product_outbox_update
+    AFTER UPDATE ON product
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_outbox_capture();
+
+CREATE TRIGGER product_outbox_delete
+    AFTER DELETE ON product
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_outbox_capture();
@@ -0,0 +1,18 @@
+-- Wakes up ProductChangeFeed listeners when product events are recorded in the outbox.
+-- The payload is the range of new outbox IDs ("first,last"), so listeners fetch the events with one
+-- indexed query. Notifications are only delivered when the writing transaction commits.
+CREATE FUNCTION product_outbox_notify() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    PERFORM pg_notify('product_changes', min(n.id) || ',' || max(n.id))
+    FROM new_rows n
+    HAVING count(*) > 0;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER product_outbox_notify
+    AFTER INSERT ON product_outbox
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_outbox_notify();
@@ -0,0 +1,79 @@
+-- Product count, price sum and price histogram, maintained by triggers so statistics never need a table scan.
+-- Each writing session updates one of 16 shards, picked from its backend PID, so concurrent writers rarely
+-- wait on the same rows. Readers add up the shards; there are at most 16 x 64 rows.
+CREATE TABLE product_stats
+(
+    shard         SMALLINT NOT NULL,
+    bucket        SMALLINT NOT NULL, -- See product_price_bucket.
+    product_count BIGINT   NOT NULL,
+    price_sum     NUMERIC  NOT NULL, -- Exact, so repeated increments and decrements do not drift.
+    PRIMARY KEY (shard, bucket)
+);
+
+-- Histogram bucket of a price: 0 for [0, 1), then k for [2^(k-1), 2^k), up to 63.
+CREATE FUNCTION product_price_bucket(price DOUBLE PRECISION) RETURNS SMALLINT
+    LANGUAGE sql IMMUTABLE AS
+$$
+SELECT CASE WHEN price < 1 THEN 0 ELSE least(floor(log(2, price::numeric)) + 1, 63) END::smallint
+$$;
+
+CREATE FUNCTION product_stats_capture() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    -- Rows are upserted in bucket order, so concurrent statements on the same shard lock them in the same order.
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO product_stats AS s (shard, bucket, product_count, price_sum)
+        SELECT pg_backend_pid() % 16, product_price_bucket(n.price), count(*), sum(n.price::numeric)
+        FROM new_rows n
+        GROUP BY 2
+        ORDER BY 2
+        ON CONFLICT (shard, bucket) DO UPDATE
+            SET product_count = s.product_count + excluded.product_count,
+                price_sum     = s.price_sum + excluded.price_sum;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO product_stats AS s (shard, bucket, product_count, price_sum)
+        SELECT pg_backend_pid() % 16, product_price_bucket(o.price), -count(*), -sum(o.price::numeric)
+        FROM old_rows o
+        GROUP BY 2
+        ORDER BY 2
+        ON CONFLICT (shard, bucket) DO UPDATE
+            SET product_count = s.product_count + excluded.product_count,
+                price_sum     = s.price_sum + excluded.price_sum;
+    ELSE
+        INSERT INTO product_stats AS s (shard, bucket, product_count, price_sum)
+        SELECT pg_backend_pid() % 16, d.bucket, sum(d.delta), sum(d.delta * d.price)
+        FROM (SELECT product_price_bucket(n.price) AS bucket, 1 AS delta, n.price::numeric AS price FROM new_rows n
+              UNION ALL
+              SELECT product_price_bucket(o.price), -1, o.price::numeric FROM old_rows o) d
+        GROUP BY 2
+        HAVING sum(d.delta) <> 0 OR sum(d.delta * d.price) <> 0 -- Skips updates that left the prices unchanged.
+        ORDER BY 2
+        ON CONFLICT (shard, bucket) DO UPDATE
+            SET product_count = s.product_count + excluded.product_count,
+                price_sum     = s.price_sum + excluded.price_sum;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER product_stats_insert
+    AFTER INSERT ON product
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_stats_capture();
+
+CREATE TRIGGER product_stats_update
+    AFTER UPDATE ON product
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_stats_capture();
+
+CREATE TRIGGER product_stats_delete
+    AFTER DELETE ON product
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_stats_capture();
+
+-- Starts from the existing products.
+INSERT INTO product_stats (shard, bucket, product_count, price_sum)
+SELECT 0, product_price_bucket(price), count(*), sum(price::numeric)
+FROM product
+GROUP BY 2;
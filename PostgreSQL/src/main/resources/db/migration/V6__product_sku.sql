@@ -0,0 +1,26 @@
+-- Business key sent by upstream feeds, used by the bulk upsert. Existing products have none;
+-- a unique index allows any number of NULLs.
+ALTER TABLE product ADD COLUMN sku VARCHAR(64);
+CREATE UNIQUE INDEX product_sku_key ON product (sku);
+
+-- Includes the SKU in the outbox event payloads.
+CREATE OR REPLACE FUNCTION product_outbox_capture() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO product_outbox (event_type, product_id, payload)
+        SELECT 'DELETED', o.id,
+               jsonb_build_object('id', o.id, 'sku', o.sku, 'name', o.name, 'price', o.price, 'version', o.version)
+        FROM old_rows o
+        ORDER BY o.id;
+    ELSE
+        INSERT INTO product_outbox (event_type, product_id, payload)
+        SELECT CASE TG_OP WHEN 'INSERT' THEN 'CREATED' ELSE 'UPDATED' END, n.id,
+               jsonb_build_object('id', n.id, 'sku', n.sku, 'name', n.name, 'price', n.price, 'version', n.version)
+        FROM new_rows n
+        ORDER BY n.id;
+    END IF;
+    RETURN NULL;
+END
+$$;
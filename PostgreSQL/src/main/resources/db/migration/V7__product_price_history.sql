@@ -0,0 +1,85 @@
+-- Append-only log of product prices: one row when a product is created, then one per price change.
+-- Rows are never updated or deleted, not even with their product, so past prices stay answerable.
+-- Range-partitioned by month on changed_at: new rows only ever go to the latest partition, old months can be
+-- detached or archived without touching the rest, and time filters prune whole partitions.
+CREATE TABLE product_price_history
+(
+    product_id     BIGINT           NOT NULL,
+    changed_at     TIMESTAMPTZ      NOT NULL,
+    price          DOUBLE PRECISION NOT NULL, -- The price from changed_at on.
+    previous_price DOUBLE PRECISION           -- NULL when the product was created.
+) PARTITION BY RANGE (changed_at);
+
+-- Serves the per-product lookups: the latest row at or before a point in time, and the changes in a range.
+-- There is deliberately no DEFAULT partition: without one, the planner can scan the monthly partitions
+-- newest first and stop at the first match, instead of probing every partition.
+CREATE INDEX product_price_history_product_idx ON product_price_history (product_id, changed_at) INCLUDE (price);
+-- Serves catalog-wide time ranges. Rows arrive in changed_at order, so a BRIN index a few pages in size
+-- per partition skips everything outside the range, where a btree would grow with every row.
+CREATE INDEX product_price_history_changed_at_idx ON product_price_history USING brin (changed_at);
+
+-- Creates the missing monthly partitions from the current month to the given number of months ahead.
+-- Each one is created on its own and then attached, which does not block concurrent writers the way
+-- CREATE TABLE ... PARTITION OF does. Called by ProductPriceHistoryMaintenance; safe to run any number of times.
+CREATE FUNCTION product_price_history_create_partitions(months_ahead INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    this_month     TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC'); -- Partition bounds are UTC months.
+    month_start    TIMESTAMPTZ;
+    month_end      TIMESTAMPTZ;
+    partition_name TEXT;
+    created        INTEGER := 0;
+BEGIN
+    FOR i IN 0..months_ahead
+        LOOP
+            month_start := (this_month + make_interval(months => i)) AT TIME ZONE 'UTC';
+            month_end := (this_month + make_interval(months => i + 1)) AT TIME ZONE 'UTC';
+            partition_name := 'product_price_history_' || to_char(this_month + make_interval(months => i), 'YYYYMM');
+            CONTINUE WHEN to_regclass(partition_name) IS NOT NULL;
+            EXECUTE format('CREATE TABLE %I (LIKE product_price_history)', partition_name);
+            EXECUTE format('ALTER TABLE product_price_history ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, month_end);
+            created := created + 1;
+        END LOOP;
+    RETURN created;
+END
+$$;
+
+SELECT product_price_history_create_partitions(3);
+
+-- Records created products and price changes in the transaction of the change, whatever the write path
+-- (JPA updates, versioned patches, batch repricing, upserts, COPY loads). Name-only updates record nothing.
+CREATE FUNCTION product_price_history_capture() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO product_price_history (product_id, changed_at, price)
+        SELECT n.id, clock_timestamp(), n.price
+        FROM new_rows n;
+    ELSE
+        INSERT INTO product_price_history (product_id, changed_at, price, previous_price)
+        SELECT n.id, clock_timestamp(), n.price, o.price
+        FROM new_rows n
+                 JOIN old_rows o ON o.id = n.id
+        WHERE n.price IS DISTINCT FROM o.price;
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER product_price_history_insert
+    AFTER INSERT ON product
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_price_history_capture();
+
+CREATE TRIGGER product_price_history_update
+    AFTER UPDATE ON product
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION product_price_history_capture();
+
+-- Starts from the existing products, whose earlier prices are unknown.
+INSERT INTO product_price_history (product_id, changed_at, price)
+SELECT id, now(), price
+FROM product;
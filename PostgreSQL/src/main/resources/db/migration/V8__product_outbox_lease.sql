@@ -0,0 +1,5 @@
+-- Lets ProductOutboxRelay claim a batch in one short statement and publish it outside any transaction:
+-- a claimed event is skipped by the other relays until claimed_until, so an instance that dies mid-batch
+-- only delays its events by one lease, without holding row locks or a connection while it waits for Pub/Sub.
+ALTER TABLE product_outbox
+    ADD COLUMN claimed_until TIMESTAMPTZ;
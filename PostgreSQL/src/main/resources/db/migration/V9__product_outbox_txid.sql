@@ -0,0 +1,21 @@
+-- Records the transaction of each outbox event, so ProductChangeFeed can deliver events in commit order.
+-- IDs are drawn when the row is inserted, not when it commits: a transaction that inserts first and commits
+-- last makes its events appear below IDs already delivered. The feed instead remembers the snapshot it last
+-- read at and fetches the events of the transactions that were not yet visible in it.
+ALTER TABLE product_outbox
+    ADD COLUMN txid xid8 NOT NULL DEFAULT pg_current_xact_id();
+-- The transactions not visible in a snapshot are all at or above its xmin.
+CREATE INDEX product_outbox_txid_idx ON product_outbox (txid);
+
+-- The feed reads by snapshot, not by ID range, so the notification only needs to wake it up.
+-- Identical notifications of one transaction are sent once, so a transaction now notifies once.
+CREATE OR REPLACE FUNCTION product_outbox_notify() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF EXISTS (SELECT 1 FROM new_rows) THEN
+        PERFORM pg_notify('product_changes', '');
+    END IF;
+    RETURN NULL;
+END
+$$;
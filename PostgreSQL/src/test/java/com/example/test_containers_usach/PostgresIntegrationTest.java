@@ -1,9 +1,17 @@
 package com.example.test_containers_usach;
 
 import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductCopyLoader;
+import com.example.ProductMetrics;
+import com.example.ProductPriceChange;
+import com.example.ProductPriceHistoryMaintenance;
 import com.example.ProductRepository;
 import com.example.ProductService;
-import org.junit.jupiter.api.BeforeEach;
+import com.example.ProductSummary;
+import com.example.ProductUpsertResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
@@ -13,15 +21,24 @@ import org.springframework.context.ApplicationContextInitializer;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
-import org.testcontainers.containers.PostgreSQLContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * **Integration Test** for JPA/Hibernate with a **Testcontainers-managed PostgreSQL database**.
@@ -32,21 +49,20 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @DataJpaTest( // Configures Spring Boot to test JPA components.
         // Specifies to include ProductService in the test context, even though DataJpaTest usually scans only repositories.
-        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {ProductService.class}
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {ProductService.class, ProductCache.class, ProductMetrics.class, ProductCopyLoader.class,
+                ProductPriceHistoryMaintenance.class}
         ))
-@Testcontainers // Enables Testcontainers for automatic container lifecycle management.
 // Prevents DataJpaTest from replacing the actual DataSource with an in-memory one (like H2).
-// This forces it to use the database provided by Testcontainers.
+// This forces it to use the database cloned for this class from the migrated template.
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 // Attaches an initializer to dynamically configure Spring properties for the PostgreSQL container.
 @ContextConfiguration(initializers = PostgresIntegrationTest.PostgresContainerInitializer.class)
 public class PostgresIntegrationTest {
 
-    // --- Testcontainers PostgreSQL Container ---
-    // Declares a PostgreSQL container; Testcontainers manages its start/stop.
-    @Container
-    public static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:16-alpine")
-            .withDatabaseName("testdb").withUsername("testuser").withPassword("testpass");
+    // --- PostgreSQL Test Database ---
+    // An empty database of its own on the shared container; every test runs in a transaction rolled back at its end,
+    // so no cleanup between tests is needed.
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
 
     // --- Autowired Application Components ---
     @Autowired
@@ -55,13 +71,17 @@ public class PostgresIntegrationTest {
     @Autowired
     private ProductRepository productRepository; // The JPA repository for direct database interaction/setup.
 
-    /**
-     * Cleans up the database before each test. Ensures test isolation.
-     */
-    @BeforeEach
-    void setUp() {
-        productRepository.deleteAll(); // Clears all data from the product table.
-    }
+    @Autowired
+    private ProductCopyLoader productCopyLoader; // The COPY-based bulk loader.
+
+    @Autowired
+    private ProductMetrics productMetrics; // Records the service metrics checked below.
+
+    @Autowired
+    private ProductPriceHistoryMaintenance productPriceHistoryMaintenance; // Creates the price history partitions.
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // Inspects the price history partitions.
 
     /**
      * Tests saving a product and then retrieving it by ID.
@@ -93,6 +113,140 @@ public class PostgresIntegrationTest {
         assertThat(products).extracting(Product::getName).containsExactlyInAnyOrder("Keyboard", "Mouse"); // Verifies names.
     }
 
+    /**
+     * Tests walking the whole table page by page with keyset pagination.
+     */
+    @Test
+    void testGetProductsAfterWalksAllPages() {
+        productService.createProducts(IntStream.range(0, 25)
+                .mapToObj(i -> new Product(null, "Paged " + i, i))
+                .toList());
+
+        List<Long> seenIds = new ArrayList<>();
+        List<Product> page = productService.getProductsAfter(null, 10); // First page.
+        while (!page.isEmpty()) {
+            page.forEach(product -> seenIds.add(product.getId()));
+            page = productService.getProductsAfter(page.get(page.size() - 1).getId(), 10); // Seeks past the last ID.
+        }
+
+        assertThat(seenIds).hasSize(25).isSorted().doesNotHaveDuplicates();
+    }
+
+    /**
+     * Tests streaming all products through a server-side cursor with a small fetch size.
+     */
+    @Test
+    void testStreamAllProducts() {
+        productService.createProducts(IntStream.range(0, 25)
+                .mapToObj(i -> new Product(null, "Streamed " + i, i))
+                .toList());
+
+        // DataJpaTest runs each test in a transaction, which the stream requires.
+        try (Stream<Product> products = productService.streamAllProducts(7)) {
+            assertThat(products.map(Product::getName)).hasSize(25).contains("Streamed 0", "Streamed 24");
+        }
+    }
+
+    /**
+     * Tests the indexed searches, which return projections instead of entities.
+     */
+    @Test
+    void testSearchProducts() {
+        productService.createProduct(new Product(null, "USB Cable", 9.50));
+        productService.createProduct(new Product(null, "USB Hub", 25.00));
+        productService.createProduct(new Product(null, "Monitor Cable", 12.00));
+        productService.createProduct(new Product(null, "Monitor", 300.00));
+
+        assertThat(productService.searchByPriceRange(10.00, 30.00, 10)).extracting(ProductSummary::name)
+                .containsExactly("Monitor Cable", "USB Hub"); // Cheapest first.
+        assertThat(productService.searchByNamePrefix("USB", 10)).extracting(ProductSummary::name)
+                .containsExactly("USB Cable", "USB Hub");
+        assertThat(productService.searchByNameContaining("cable", 10)).extracting(ProductSummary::name)
+                .containsExactly("Monitor Cable", "USB Cable"); // Case-insensitive, ordered by name.
+        assertThat(productService.getCheapestProducts(2)).extracting(ProductSummary::price)
+                .containsExactly(9.50, 12.00);
+    }
+
+    /**
+     * Tests creating products in bulk across several JDBC batches.
+     */
+    @Test
+    void testCreateProductsInBatches() {
+        List<Product> products = IntStream.range(0, 1200)
+                .mapToObj(i -> new Product(null, "Bulk " + i, i))
+                .toList();
+
+        List<Product> savedProducts = productService.createProducts(products, 500); // Three batches: 500, 500, 200.
+
+        assertThat(savedProducts).hasSize(1200);
+        assertThat(savedProducts).extracting(Product::getId).doesNotContainNull().doesNotHaveDuplicates(); // IDs assigned from the sequence.
+        assertThat(productRepository.count()).isEqualTo(1200);
+    }
+
+    /**
+     * Tests streaming CSV rows into the product table with COPY, appending to existing products.
+     */
+    @Test
+    void testCopyLoaderAppendsCsv() throws IOException {
+        productService.createProduct(new Product(null, "Existing", 10.00));
+        String csv = "name,price\n\"Cable, USB-C\",9.5\nAdapter,15\n";
+
+        ProductCopyLoader.LoadResult result = productCopyLoader.load(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                ProductCopyLoader.Format.CSV, ProductCopyLoader.Mode.APPEND);
+
+        assertThat(result.rows()).isEqualTo(2);
+        assertThat(productRepository.findAll()).extracting(Product::getName)
+                .containsExactlyInAnyOrder("Existing", "Cable, USB-C", "Adapter");
+    }
+
+    /**
+     * Tests that a REPLACE load swaps the table contents, and that a negative price aborts the load.
+     */
+    @Test
+    void testCopyLoaderReplacesWithNdjsonAndRejectsNegativePrice() throws IOException {
+        productService.createProduct(new Product(null, "Old", 10.00));
+        productRepository.flush(); // The loader works on JDBC, so pending JPA inserts must reach the database first.
+        String ndjson = "{\"name\":\"Desk\",\"price\":250.0}\n{\"name\":\"Chair\",\"price\":120}\n";
+
+        productCopyLoader.load(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                ProductCopyLoader.Format.NDJSON, ProductCopyLoader.Mode.REPLACE);
+
+        assertThat(productRepository.findAll()).extracting(Product::getName).containsExactlyInAnyOrder("Desk", "Chair");
+
+        String invalid = "{\"name\":\"Lamp\",\"price\":-1}\n";
+        assertThatThrownBy(() -> productCopyLoader.load(new ByteArrayInputStream(invalid.getBytes(StandardCharsets.UTF_8)),
+                ProductCopyLoader.Format.NDJSON, ProductCopyLoader.Mode.APPEND))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product price cannot be negative (line 1)");
+    }
+
+    /**
+     * Tests that prices which are not finite numbers abort the load, in both formats.
+     */
+    @Test
+    void testCopyLoaderRejectsNonFinitePrice() {
+        for (String csv : List.of("Cable,NaN\n", "Cable,Infinity\n", "Cable,-Infinity\n")) {
+            assertThatThrownBy(() -> productCopyLoader.load(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                    ProductCopyLoader.Format.CSV, ProductCopyLoader.Mode.APPEND))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Product price must be a finite number (line 1)");
+        }
+        for (String ndjson : List.of("{\"name\":\"Lamp\",\"price\":\"Infinity\"}\n", "{\"name\":\"Lamp\",\"price\":\"NaN\"}\n")) {
+            assertThatThrownBy(() -> productCopyLoader.load(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                    ProductCopyLoader.Format.NDJSON, ProductCopyLoader.Mode.APPEND))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Product price must be a finite number (line 1)"); // Not reported as a missing price.
+        }
+        String missingPrice = "{\"name\":\"Lamp\"}\n";
+        assertThatThrownBy(() -> productCopyLoader.load(new ByteArrayInputStream(missingPrice.getBytes(StandardCharsets.UTF_8)),
+                ProductCopyLoader.Format.NDJSON, ProductCopyLoader.Mode.APPEND))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing price (line 1)");
+
+        assertThat(productRepository.count()).isZero(); // Nothing was loaded.
+    }
+
     /**
      * Tests updating an existing product's details.
      */
@@ -110,6 +264,126 @@ public class PostgresIntegrationTest {
         assertThat(foundProduct.get().getPrice()).isEqualTo(350.00);
     }
 
+    /**
+     * Tests that a patch bumps the version, and that a second patch based on the old version is rejected.
+     */
+    @Test
+    void testPatchProductWithOptimisticVersioning() {
+        Product product = productService.createProduct(new Product(null, "Speaker", 80.00));
+        productRepository.flush(); // Assigns the initial version in the database.
+        long version = product.getVersion();
+
+        long newVersion = productService.patchProduct(product.getId(), version, null, 70.00); // Keeps the name.
+
+        assertThat(newVersion).isEqualTo(version + 1);
+        Product foundProduct = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(foundProduct.getName()).isEqualTo("Speaker");
+        assertThat(foundProduct.getPrice()).isEqualTo(70.00);
+        assertThat(foundProduct.getVersion()).isEqualTo(newVersion);
+
+        // A writer still holding the old version must not overwrite the change.
+        assertThatThrownBy(() -> productService.patchProduct(product.getId(), version, "Stale", null))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    /**
+     * Tests repricing several products in one batched call.
+     */
+    @Test
+    void testRepriceProducts() {
+        Product keyboard = productService.createProduct(new Product(null, "Keyboard", 75.00));
+        Product mouse = productService.createProduct(new Product(null, "Mouse", 25.00));
+
+        int updated = productService.repriceProducts(Map.of(keyboard.getId(), 60.00, mouse.getId(), 20.00, -1L, 1.00));
+
+        assertThat(updated).isEqualTo(2); // The unknown ID is skipped.
+        assertThat(productRepository.findById(keyboard.getId())).get().extracting(Product::getPrice).isEqualTo(60.00);
+        assertThat(productRepository.findById(mouse.getId())).get().extracting(Product::getPrice).isEqualTo(20.00);
+    }
+
+    /**
+     * Tests that upserting by SKU inserts new products, updates changed ones and skips the rest,
+     * so replaying the same feed writes nothing.
+     */
+    @Test
+    void testUpsertProductsBySku() {
+        List<Product> feed = List.of(
+                new Product(null, "KB-1", "Keyboard", 75.00),
+                new Product(null, "MS-1", "Mouse", 25.00),
+                new Product(null, "MS-1", "Mouse", 20.00)); // Repeated SKU: the last occurrence wins.
+
+        assertThat(productService.upsertProducts(feed)).isEqualTo(new ProductUpsertResult(2, 0, 0));
+        assertThat(productService.upsertProducts(feed)).isEqualTo(new ProductUpsertResult(0, 0, 2));
+
+        ProductUpsertResult result = productService.upsertProducts(List.of(
+                new Product(null, "KB-1", "Keyboard", 60.00),
+                new Product(null, "MS-1", "Mouse", 20.00),
+                new Product(null, "HB-1", "Hub", 30.00)));
+
+        assertThat(result).isEqualTo(new ProductUpsertResult(1, 1, 1));
+        assertThat(productRepository.findAll())
+                .extracting(Product::getSku, Product::getPrice, Product::getVersion)
+                .containsExactlyInAnyOrder(
+                        tuple("KB-1", 60.00, 1L), // Updated once.
+                        tuple("MS-1", 20.00, 0L), // Never rewritten.
+                        tuple("HB-1", 30.00, 0L));
+    }
+
+    /**
+     * Tests that price changes are kept in the price history, whatever the write path, and that past prices
+     * can be looked up by time.
+     */
+    @Test
+    void testPriceHistory() {
+        Product product = productService.createProduct(new Product(null, "Lamp", 40.00));
+        productRepository.flush(); // Each flush sends its own statement, as separate transactions would.
+        productService.updateProduct(product.getId(), new Product(null, "Lamp", 45.00));
+        productRepository.flush();
+        productService.updateProduct(product.getId(), new Product(null, "Desk lamp", 45.00)); // Name only: not recorded.
+        productRepository.flush();
+        productService.repriceProducts(Map.of(product.getId(), 50.00));
+
+        Instant later = Instant.now().plusSeconds(3600);
+        List<ProductPriceChange> changes = productService.getPriceChanges(product.getId(), Instant.EPOCH, later);
+
+        assertThat(changes).extracting(ProductPriceChange::price, ProductPriceChange::previousPrice)
+                .containsExactly(tuple(40.00, null), tuple(45.00, 40.00), tuple(50.00, 45.00));
+        Instant created = changes.get(0).changedAt();
+        Instant repriced = changes.get(2).changedAt();
+        assertThat(productService.getPriceAt(product.getId(), created.minusNanos(1000))).isEmpty(); // Did not exist yet.
+        assertThat(productService.getPriceAt(product.getId(), created)).contains(40.00);
+        assertThat(productService.getPriceAt(product.getId(), repriced.minusNanos(1000))).contains(45.00);
+        assertThat(productService.getPriceAt(product.getId(), later)).contains(50.00);
+        assertThat(productService.getPriceChanges(product.getId(), repriced, later))
+                .extracting(ProductPriceChange::price).containsExactly(50.00);
+        assertThat(productService.getPriceChangesBetween(created, repriced, 10))
+                .extracting(ProductPriceChange::productId).containsOnly(product.getId()).hasSize(2);
+    }
+
+    /**
+     * Tests that price changes of a month without a partition land in the default partition, and are moved
+     * to the month's partition once it is created.
+     */
+    @Test
+    void testPriceHistoryWithoutPartition() {
+        String partition = jdbcTemplate.queryForObject(
+                "SELECT 'product_price_history_' || to_char(now() AT TIME ZONE 'UTC', 'YYYYMM')", String.class);
+        jdbcTemplate.execute("DROP TABLE " + partition); // Rolled back with the test.
+
+        Product product = productService.createProduct(new Product(null, "Clock", 25.00));
+        productRepository.flush(); // Fires the history trigger, which would fail without a default partition.
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM product_price_history_default", Long.class))
+                .isEqualTo(1);
+
+        assertThat(productPriceHistoryMaintenance.createPartitions()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM product_price_history_default", Long.class))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM " + partition, Long.class)).isEqualTo(1);
+        assertThat(productService.getPriceAt(product.getId(), Instant.now())).contains(25.00);
+    }
+
     /**
      * Tests deleting a product from the database.
      */
@@ -124,6 +398,63 @@ public class PostgresIntegrationTest {
         assertThat(foundProduct).isNotPresent(); // Confirms deletion.
     }
 
+    /**
+     * Tests the set-based bulk deletes by ID, by price range and by name prefix.
+     */
+    @Test
+    void testBulkDeletes() {
+        Product cable = productService.createProduct(new Product(null, "Cable 1m", 5.00));
+        Product adapter = productService.createProduct(new Product(null, "Adapter", 15.00));
+        productService.createProduct(new Product(null, "Cable 2m", 8.00));
+        productService.createProduct(new Product(null, "Monitor", 300.00));
+        productService.createProduct(new Product(null, "Laptop", 1200.00));
+
+        assertThat(productService.deleteProducts(List.of(cable.getId(), adapter.getId(), -1L))).isEqualTo(2);
+        assertThat(productService.deleteProductsByNamePrefix("Cable")).isEqualTo(1); // "Cable 2m" is left.
+        assertThat(productService.deleteProductsByPriceRange(100.00, 500.00)).isEqualTo(1); // Only the monitor.
+
+        assertThat(productRepository.findAll()).extracting(Product::getName).containsExactly("Laptop");
+    }
+
+    /**
+     * Tests that service calls record their latency, the rows they return and the SQL statements they execute.
+     */
+    @Test
+    void testServiceMetrics() {
+        MeterRegistry registry = productMetrics.getMeterRegistry();
+        productService.createProduct(new Product(null, "Metered", 10.00));
+        productService.getAllProducts(); // Flushes the insert, so the call below only runs its own SELECT.
+
+        // The registry is shared by all tests in this context, so only the increase caused by one call is checked.
+        long callsBefore = registry.get("product.service.calls")
+                .tags("operation", "getAllProducts", "outcome", "success").timer().count();
+        double rowsBefore = registry.get("product.service.rows").tag("operation", "getAllProducts").summary().totalAmount();
+        double statementsBefore = registry.get("product.service.statements").tag("operation", "getAllProducts")
+                .summary().totalAmount();
+
+        productService.getAllProducts();
+
+        assertThat(registry.get("product.service.calls").tags("operation", "getAllProducts", "outcome", "success")
+                .timer().count()).isEqualTo(callsBefore + 1);
+        assertThat(registry.get("product.service.rows").tag("operation", "getAllProducts").summary().totalAmount())
+                .isEqualTo(rowsBefore + 1); // The single product created above.
+        assertThat(registry.get("product.service.statements").tag("operation", "getAllProducts").summary().totalAmount())
+                .isEqualTo(statementsBefore + 1); // One SELECT.
+
+        // Statements sent on the raw JDBC connection, outside Hibernate, are counted too.
+        DistributionSummary upsertStatements = registry.find("product.service.statements")
+                .tag("operation", "upsertProducts").summary(); // Absent until the first upsert of this context.
+        double upsertStatementsBefore = upsertStatements != null ? upsertStatements.totalAmount() : 0;
+        productService.upsertProducts(List.of(new Product(null, "MT-1", "Metered", 12.00)));
+        assertThat(registry.get("product.service.statements").tag("operation", "upsertProducts").summary().totalAmount())
+                .isGreaterThan(upsertStatementsBefore);
+
+        assertThatThrownBy(() -> productService.createProduct(new Product(null, "Invalid", -1.00)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(registry.get("product.service.calls").tags("operation", "createProduct", "outcome", "error")
+                .timer().count()).isPositive();
+    }
+
     /**
      * Dynamically configures Spring Boot's DataSource properties to connect to the Testcontainers PostgreSQL instance.
      */
@@ -131,11 +462,11 @@ public class PostgresIntegrationTest {
         @Override
         public void initialize(ConfigurableApplicationContext applicationContext) {
             TestPropertyValues.of(
-                    "spring.datasource.url=" + postgresContainer.getJdbcUrl(),
-                    "spring.datasource.username=" + postgresContainer.getUsername(),
-                    "spring.datasource.password=" + postgresContainer.getPassword(),
-                    "spring.datasource.driver-class-name=" + postgresContainer.getDriverClassName(),
-                    "spring.jpa.hibernate.ddl-auto=create-drop" // Ensures schema is created/dropped for each test run.
+                    "spring.datasource.url=" + postgresDatabase.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresDatabase.getUsername(),
+                    "spring.datasource.password=" + postgresDatabase.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgresDatabase.getDriverClassName(),
+                    "spring.jpa.hibernate.ddl-auto=validate" // Flyway creates the schema; Hibernate only checks the mapping.
             ).applyTo(applicationContext.getEnvironment());
         }
     }
@@ -1,8 +1,15 @@
 package com.example.test_containers_usach;
 
 import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductMetrics;
 import com.example.ProductRepository;
 import com.example.ProductService;
+import com.example.ProductSummary;
+import com.google.cloud.spring.autoconfigure.core.GcpContextAutoConfiguration;
+import com.google.cloud.spring.autoconfigure.pubsub.GcpPubSubAutoConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,15 +17,22 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -35,6 +49,9 @@ import static org.mockito.Mockito.*;
         DataSourceAutoConfiguration.class, // Prevents DataSource bean creation.
         HibernateJpaAutoConfiguration.class, // Prevents Hibernate configuration.
         JpaRepositoriesAutoConfiguration.class, // Prevents Spring Data JPA repository setup.
+        R2dbcAutoConfiguration.class, // Prevents R2DBC connection factory creation.
+        GcpPubSubAutoConfiguration.class, // Prevents auto-configuration of the outbox relay's Pub/Sub client.
+        GcpContextAutoConfiguration.class, // Prevents general GCP context auto-configuration.
 })
 class PostgresServiceMockTest {
 
@@ -47,12 +64,19 @@ class PostgresServiceMockTest {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private ProductCache productCache; // The real cache, shared by all tests in this context.
+
+    @Autowired
+    private ProductMetrics productMetrics; // The real metrics, shared by all tests in this context.
+
     /**
-     * Resets the mock before each test to ensure test isolation.
+     * Resets the mock and empties the cache before each test to ensure test isolation.
      */
     @BeforeEach
     void setUp() {
         reset(productRepository); // Clears any previous stubbings or interaction recordings.
+        productCache.invalidateAll(); // Prevents products cached by a previous test from hiding repository calls.
     }
 
     /**
@@ -95,6 +119,44 @@ class PostgresServiceMockTest {
         verify(productRepository, never()).save(any(Product.class));
     }
 
+    /**
+     * Tests that bulk creation delegates to the batched insert with the configured batch size.
+     */
+    @Test
+    void testCreateProducts_success() {
+        List<Product> newProducts = Arrays.asList(
+                new Product(null, "Mock Keyboard", 75.00),
+                new Product(null, "Mock Mouse", 25.00));
+
+        // Stubs the batched insert to return the products it receives.
+        when(productRepository.insertInBatches(anyList(), anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Product> result = productService.createProducts(newProducts);
+
+        // Verifies a single batched insert was issued with the default batch size.
+        verify(productRepository, times(1)).insertInBatches(newProducts, 500);
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(result).containsExactlyElementsOf(newProducts);
+    }
+
+    /**
+     * Tests that a single negative price rejects the whole bulk creation before anything is written.
+     */
+    @Test
+    void testCreateProducts_negativePriceThrowsException() {
+        List<Product> newProducts = Arrays.asList(
+                new Product(null, "Valid Product", 10.00),
+                new Product(null, "Invalid Product", -10.00));
+
+        assertThatThrownBy(() -> productService.createProducts(newProducts))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product price cannot be negative");
+
+        // Verifies that nothing was written, as validation happens up front.
+        verifyNoInteractions(productRepository);
+    }
+
     /**
      * Tests retrieving all products.
      */
@@ -117,6 +179,42 @@ class PostgresServiceMockTest {
         assertThat(result).containsExactlyInAnyOrder(product1, product2);
     }
 
+    /**
+     * Tests that pagination seeks past the given ID with the requested page size.
+     */
+    @Test
+    void testGetProductsAfter_usesKeysetQuery() {
+        List<Product> mockPage = List.of(new Product(11L, "Mock Webcam", 50.00));
+
+        // Stubs the keyset query to return a single product.
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any(Limit.class))).thenReturn(mockPage);
+
+        List<Product> result = productService.getProductsAfter(10L, 2);
+
+        // Verifies the keyset query was called once with the cursor and page size.
+        verify(productRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(10L), argThat(limit -> limit.max() == 2));
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(result).containsExactlyElementsOf(mockPage);
+    }
+
+    /**
+     * Tests that a substring search is delegated as an escaped, case-insensitive LIKE pattern.
+     */
+    @Test
+    void testSearchByNameContaining_usesEscapedPattern() {
+        List<ProductSummary> mockResults = List.of(new ProductSummary(1L, "USB_C Cable", 9.50));
+
+        when(productRepository.findSummariesByNameILike(eq("%usb!_c%"), any(Limit.class))).thenReturn(mockResults);
+
+        List<ProductSummary> result = productService.searchByNameContaining("usb_c", 10);
+
+        verify(productRepository, times(1)).findSummariesByNameILike(eq("%usb!_c%"), argThat(limit -> limit.max() == 10));
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(result).containsExactlyElementsOf(mockResults);
+    }
+
     /**
      * Tests retrieving a product by ID when it exists.
      */
@@ -138,6 +236,49 @@ class PostgresServiceMockTest {
         assertThat(result.get().getName()).isEqualTo("Mock Monitor");
     }
 
+    /**
+     * Tests that repeated lookups of the same product are served from the cache.
+     */
+    @Test
+    void testGetProductById_cachedAfterFirstLookup() {
+        Long productId = 1L;
+        Product mockProduct = new Product(productId, "Mock Monitor", 300.00);
+
+        when(productRepository.findById(productId)).thenReturn(Optional.of(mockProduct));
+        long hitsBefore = productCache.stats().hitCount(); // Stats accumulate across tests sharing the context.
+
+        productService.getProductById(productId);
+        Optional<Product> result = productService.getProductById(productId);
+
+        // Verifies the database was only queried by the first lookup.
+        verify(productRepository, times(1)).findById(productId);
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(result.get()).usingRecursiveComparison().isEqualTo(mockProduct);
+        assertThat(productCache.stats().hitCount()).isEqualTo(hitsBefore + 1);
+    }
+
+    /**
+     * Tests that the cache hands out copies, so modifying a returned product, or the entity it was loaded
+     * from, does not change what other callers read.
+     */
+    @Test
+    void testGetProductById_returnsDetachedCopies() {
+        Long productId = 1L;
+        Product managedProduct = new Product(productId, "Mock Monitor", 300.00);
+        when(productRepository.findById(productId)).thenReturn(Optional.of(managedProduct));
+
+        Product first = productService.getProductById(productId).orElseThrow();
+        first.setPrice(1.00);
+        managedProduct.setName("Uncommitted Name"); // As a later change in the loading transaction would.
+        Product second = productService.getProductById(productId).orElseThrow();
+
+        assertThat(first).isNotSameAs(managedProduct);
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("Mock Monitor");
+        assertThat(second.getPrice()).isEqualTo(300.00);
+    }
+
     /**
      * Tests retrieving a product by ID when it does not exist.
      */
@@ -188,6 +329,29 @@ class PostgresServiceMockTest {
         assertThat(result.getPrice()).isEqualTo(150.00);
     }
 
+    /**
+     * Tests that updating a product evicts its cached copy, so the next lookup sees the new values.
+     */
+    @Test
+    void testUpdateProduct_invalidatesCache() {
+        Long productId = 1L;
+        Product cachedProduct = new Product(productId, "Old Name", 100.00);
+        Product reloadedProduct = new Product(productId, "New Name", 150.00);
+
+        // Stubs findById to return the old product for the cache and the update, then the new one.
+        when(productRepository.findById(productId))
+                .thenReturn(Optional.of(cachedProduct), Optional.of(cachedProduct), Optional.of(reloadedProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        productService.getProductById(productId); // Caches the old product.
+        productService.updateProduct(productId, new Product(null, "New Name", 150.00));
+        Optional<Product> result = productService.getProductById(productId);
+
+        // Verifies the lookup after the update went back to the database.
+        verify(productRepository, times(3)).findById(productId);
+        assertThat(result.get()).usingRecursiveComparison().isEqualTo(reloadedProduct);
+    }
+
     /**
      * Tests that updating a non-existent product throws a RuntimeException.
      */
@@ -209,6 +373,142 @@ class PostgresServiceMockTest {
         verify(productRepository, never()).save(any(Product.class));
     }
 
+    /**
+     * Tests that successful and failed calls are timed separately, and that returned rows are counted.
+     */
+    @Test
+    void testServiceCallsAreMetered() {
+        MeterRegistry registry = productMetrics.getMeterRegistry();
+        when(productRepository.findById(1L)).thenReturn(Optional.of(new Product(1L, "Metered", 10.00)));
+        when(productRepository.findById(99L)).thenReturn(Optional.empty());
+
+        productService.getProductById(1L); // Warms up the meters, so they can be read before the calls under test.
+        productService.getProductById(99L);
+        long callsBefore = registry.get("product.service.calls")
+                .tags("operation", "getProductById", "outcome", "success").timer().count();
+        double rowsBefore = registry.get("product.service.rows").tag("operation", "getProductById").summary().totalAmount();
+        long errorsBefore = registry.find("product.service.calls")
+                .tags("operation", "updateProduct", "outcome", "error").timers().stream().mapToLong(Timer::count).sum();
+
+        productService.getProductById(1L); // Cached.
+        productService.getProductById(99L); // Cached "not found".
+        assertThatThrownBy(() -> productService.updateProduct(99L, new Product(null, "Missing", 1.00)))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(registry.get("product.service.calls").tags("operation", "getProductById", "outcome", "success")
+                .timer().count()).isEqualTo(callsBefore + 2);
+        assertThat(registry.get("product.service.rows").tag("operation", "getProductById").summary().totalAmount())
+                .isEqualTo(rowsBefore + 1); // Only the found product counts.
+        assertThat(registry.get("product.service.calls").tags("operation", "updateProduct", "outcome", "error")
+                .timer().count()).isEqualTo(errorsBefore + 1);
+    }
+
+    /**
+     * Tests that a patch is applied with a single versioned UPDATE and returns the new version.
+     */
+    @Test
+    void testPatchProduct_success() {
+        Long productId = 1L;
+
+        // Stubs the versioned update to report one updated row.
+        when(productRepository.updateIfVersionMatches(productId, 3L, null, 99.00)).thenReturn(1);
+
+        long newVersion = productService.patchProduct(productId, 3L, null, 99.00);
+
+        // Verifies the update was the only database call: no prior findById.
+        verify(productRepository, times(1)).updateIfVersionMatches(productId, 3L, null, 99.00);
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(newVersion).isEqualTo(4L);
+    }
+
+    /**
+     * Tests that a patch based on an outdated version fails instead of overwriting the newer data.
+     */
+    @Test
+    void testPatchProduct_versionConflictThrowsException() {
+        Long productId = 1L;
+
+        // Stubs the versioned update to match nothing, while the product still exists.
+        when(productRepository.updateIfVersionMatches(productId, 3L, "New Name", null)).thenReturn(0);
+        when(productRepository.existsById(productId)).thenReturn(true);
+
+        assertThatThrownBy(() -> productService.patchProduct(productId, 3L, "New Name", null))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    /**
+     * Tests that a patch of a non-existent product throws a RuntimeException.
+     */
+    @Test
+    void testPatchProduct_notFoundThrowsException() {
+        Long productId = 99L;
+
+        // Stubs the versioned update to match nothing, because the product does not exist.
+        when(productRepository.updateIfVersionMatches(productId, 0L, "Name", null)).thenReturn(0);
+        when(productRepository.existsById(productId)).thenReturn(false);
+
+        assertThatThrownBy(() -> productService.patchProduct(productId, 0L, "Name", null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Product not found with ID: " + productId);
+    }
+
+    /**
+     * Tests that bulk repricing validates all prices before issuing any update.
+     */
+    @Test
+    void testRepriceProducts_negativePriceThrowsException() {
+        assertThatThrownBy(() -> productService.repriceProducts(Map.of(1L, 10.00, 2L, -5.00)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product price cannot be negative");
+
+        verifyNoInteractions(productRepository);
+    }
+
+    /**
+     * Tests that bulk repricing rejects a missing price before writing anything.
+     */
+    @Test
+    void testRepriceProducts_nullPriceThrowsException() {
+        Map<Long, Double> newPrices = new HashMap<>();
+        newPrices.put(1L, 10.00);
+        newPrices.put(2L, null);
+
+        assertThatThrownBy(() -> productService.repriceProducts(newPrices))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product price is missing for ID: 2");
+
+        verifyNoInteractions(productRepository);
+    }
+
+    /**
+     * Tests that bulk upserts reject products without a SKU before writing anything.
+     */
+    @Test
+    void testUpsertProducts_blankSkuThrowsException() {
+        List<Product> products = List.of(new Product(null, "KB-1", "Keyboard", 75.00), new Product(null, " ", "Mouse", 25.00));
+
+        assertThatThrownBy(() -> productService.upsertProducts(products))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product SKU must not be blank");
+
+        verifyNoInteractions(productRepository);
+    }
+
+    /**
+     * Tests that price history queries reject ranges that end before they start.
+     */
+    @Test
+    void testGetPriceChanges_invalidRangeThrowsException() {
+        Instant now = Instant.now();
+
+        assertThatThrownBy(() -> productService.getPriceChanges(1L, now, now.minusSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Time range must not end before it starts");
+
+        verifyNoInteractions(productRepository);
+    }
+
     /**
      * Tests successful product deletion.
      */
@@ -226,12 +526,46 @@ class PostgresServiceMockTest {
         verifyNoMoreInteractions(productRepository);
     }
 
+    /**
+     * Tests that bulk deletion splits large ID collections into bounded DELETE statements.
+     */
+    @Test
+    void testDeleteProducts_deletesInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().toList();
+
+        // Stubs each chunked delete to report every ID as deleted.
+        when(productRepository.deleteByIds(anyCollection())).thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+
+        int deleted = productService.deleteProducts(ids);
+
+        // Verifies three statements were issued for 1200 IDs with the default chunk size of 500.
+        verify(productRepository, times(3)).deleteByIds(anyCollection());
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(deleted).isEqualTo(1200);
+    }
+
+    /**
+     * Tests that LIKE wildcards in a name prefix are escaped so they match literally.
+     */
+    @Test
+    void testDeleteProductsByNamePrefix_escapesWildcards() {
+        when(productRepository.deleteByNameLike("50!% off!_!!%")).thenReturn(2);
+
+        int deleted = productService.deleteProductsByNamePrefix("50% off_!");
+
+        verify(productRepository, times(1)).deleteByNameLike("50!% off!_!!%");
+        verifyNoMoreInteractions(productRepository);
+
+        assertThat(deleted).isEqualTo(2);
+    }
+
     /**
      * Minimal Spring context configuration for this unit test.
-     * Only imports {@link ProductService} as {@link ProductRepository} is mocked.
+     * Only imports {@link ProductService} and {@link ProductCache} as {@link ProductRepository} is mocked.
      */
     @Configuration
-    @Import({ProductService.class}) // Imports the service to be tested.
+    @Import({ProductService.class, ProductCache.class, ProductMetrics.class}) // Imports the service to be tested, its cache and metrics.
     static class TestConfig {
     }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductCatalogSnapshot;
+import com.example.ProductChangeFeed;
+import com.example.ProductMetrics;
+import com.example.ProductRepository;
+import com.example.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * **Integration Test** for the {@link ProductCatalogSnapshot} with a **Testcontainers-managed PostgreSQL database**.
+ */
+@DataJpaTest(
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {ProductService.class, ProductCache.class, ProductMetrics.class, ProductChangeFeed.class,
+                        ProductCatalogSnapshot.class}
+        ))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ProductCatalogSnapshotIntegrationTest.PostgresContainerInitializer.class)
+// The snapshot is refreshed from committed changes, so every service call commits on its own.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductCatalogSnapshotIntegrationTest {
+
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCatalogSnapshot productCatalogSnapshot;
+
+    private final List<Product> products = new ArrayList<>();
+
+    /**
+     * Loads ten products priced 10, 20, ..., 100 and waits for the snapshot to contain exactly them.
+     */
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        products.clear();
+        for (int i = 10; i >= 1; i--) {
+            products.add(productService.createProduct(new Product(null, "Product " + i, i * 10.0)));
+        }
+        awaitSnapshotOf(products);
+    }
+
+    /**
+     * Tests range counts, top-N and range scans on the built snapshot.
+     */
+    @Test
+    void testPriceQueries() {
+        assertThat(productCatalogSnapshot.countInPriceRange(20.00, 50.00)).isEqualTo(4); // Bounds are inclusive.
+        assertThat(productCatalogSnapshot.countInPriceRange(101.00, 200.00)).isZero();
+
+        long[] ids = new long[3];
+        double[] prices = new double[3];
+        assertThat(productCatalogSnapshot.cheapest(ids, prices)).isEqualTo(3);
+        assertThat(prices).containsExactly(10.00, 20.00, 30.00);
+
+        assertThat(productCatalogSnapshot.findInPriceRange(30.00, 100.00, 6, ids, prices)).isEqualTo(2); // Last page.
+        assertThat(prices).startsWith(90.00, 100.00);
+
+        List<String> names = new ArrayList<>();
+        productCatalogSnapshot.forEachInPriceRange(0.00, 100.00, (id, price, name) -> {
+            names.add(name);
+            return names.size() < 2; // Stops after two products.
+        });
+        assertThat(names).containsExactly("Product 1", "Product 2");
+    }
+
+    /**
+     * Tests that creates, price changes and deletes are merged into the snapshot without a rebuild.
+     */
+    @Test
+    void testIncrementalRefresh() {
+        Product cheapest = products.get(9); // Priced 10.
+        productService.updateProduct(cheapest.getId(), new Product(null, "Product 1", 55.00));
+        productService.deleteProduct(products.get(0).getId()); // Priced 100.
+        productService.createProduct(new Product(null, "Product 11", 5.00));
+
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            productCatalogSnapshot.refresh();
+            assertThat(productCatalogSnapshot.countInPriceRange(5.00, 5.00)).isEqualTo(1);
+            assertThat(productCatalogSnapshot.countInPriceRange(10.00, 10.00)).isZero();
+            assertThat(productCatalogSnapshot.countInPriceRange(55.00, 55.00)).isEqualTo(1);
+            assertThat(productCatalogSnapshot.countInPriceRange(100.00, 100.00)).isZero();
+        });
+        assertThat(productCatalogSnapshot.size()).isEqualTo(10);
+
+        List<Double> prices = new ArrayList<>();
+        productCatalogSnapshot.forEachInPriceRange(0.00, Double.MAX_VALUE, (id, price, name) -> prices.add(price));
+        assertThat(prices).isSorted();
+    }
+
+    /**
+     * Tests that the names of deleted products are dropped from the name dictionary once they outnumber the
+     * names still in use.
+     */
+    @Test
+    void testNameDictionaryShrinksAfterDeletes() {
+        List<Product> discontinued = productService.createProducts(IntStream.range(0, 200)
+                .mapToObj(i -> new Product(null, "Discontinued " + i, 1000.00 + i))
+                .toList());
+        List<Product> all = new ArrayList<>(products);
+        all.addAll(discontinued);
+        awaitSnapshotOf(all);
+        assertThat(productCatalogSnapshot.nameDictionarySize()).isGreaterThanOrEqualTo(210);
+
+        productService.deleteProducts(discontinued.stream().map(Product::getId).toList());
+        awaitSnapshotOf(products);
+
+        assertThat(productCatalogSnapshot.nameDictionarySize()).isLessThan(100); // Most of the 200 dead names are gone.
+        List<String> names = new ArrayList<>();
+        productCatalogSnapshot.forEachInPriceRange(0.00, Double.MAX_VALUE, (id, price, name) -> names.add(name));
+        assertThat(names).containsExactly("Product 1", "Product 2", "Product 3", "Product 4", "Product 5",
+                "Product 6", "Product 7", "Product 8", "Product 9", "Product 10"); // Re-coded names still resolve.
+    }
+
+    /**
+     * Waits until the snapshot holds exactly the given products, as the changes of a previous test may still be merged.
+     */
+    private void awaitSnapshotOf(List<Product> expected) {
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            productCatalogSnapshot.refresh();
+            List<Long> ids = new ArrayList<>();
+            productCatalogSnapshot.forEachInPriceRange(0.00, Double.MAX_VALUE, (id, price, name) -> ids.add(id));
+            assertThat(ids).containsExactlyInAnyOrderElementsOf(expected.stream().map(Product::getId).toList());
+        });
+    }
+
+    /**
+     * Dynamically configures Spring Boot's DataSource properties to connect to the Testcontainers PostgreSQL instance.
+     */
+    static class PostgresContainerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgresDatabase.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresDatabase.getUsername(),
+                    "spring.datasource.password=" + postgresDatabase.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgresDatabase.getDriverClassName(),
+                    "product.change-feed.enabled=true",
+                    "product.catalog-snapshot.enabled=true"
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductChangeEvent;
+import com.example.ProductChangeFeed;
+import com.example.ProductMetrics;
+import com.example.ProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * **Integration Test** for the {@link ProductChangeFeed} with a **Testcontainers-managed PostgreSQL database**.
+ */
+@DataJpaTest(
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {ProductService.class, ProductCache.class, ProductMetrics.class, ProductChangeFeed.class}
+        ))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ProductChangeFeedIntegrationTest.PostgresContainerInitializer.class)
+// Notifications are only sent on commit, so every service call commits on its own.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductChangeFeedIntegrationTest {
+
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<ProductChangeEvent> events = new CopyOnWriteArrayList<>();
+    private final ProductChangeFeed.Listener listener = events::add;
+
+    /**
+     * Subscribes a collecting listener once the feed is connected.
+     */
+    @BeforeEach
+    void setUp() {
+        await().atMost(10, TimeUnit.SECONDS).until(() -> productChangeFeed.getLastSequence() >= 0);
+        productChangeFeed.subscribe(listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productChangeFeed.unsubscribe(listener);
+    }
+
+    /**
+     * Tests that committed creates, updates and deletes are pushed to subscribers in order.
+     */
+    @Test
+    void testChangesAreDelivered() {
+        Product product = productService.createProduct(new Product(null, "Speaker", 80.00));
+        productService.updateProduct(product.getId(), new Product(null, "Speaker", 70.00));
+        productService.deleteProduct(product.getId());
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> events.size() >= 3);
+        assertThat(events).extracting(ProductChangeEvent::type).containsExactly(
+                ProductChangeEvent.Type.CREATED, ProductChangeEvent.Type.UPDATED, ProductChangeEvent.Type.DELETED);
+        assertThat(events).extracting(ProductChangeEvent::productId).containsOnly(product.getId());
+        assertThat(events).extracting(ProductChangeEvent::version).containsExactly(0L, 1L, 1L);
+    }
+
+    /**
+     * Tests that the feed reconnects after losing its connection, and delivers the changes made meanwhile.
+     */
+    @Test
+    void testReconnectsAndCatchesUp() {
+        jdbcTemplate.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity "
+                + "WHERE application_name = 'product-change-feed'");
+        Product product = productService.createProduct(new Product(null, "Headphones", 150.00)); // Likely while disconnected.
+
+        await().atMost(20, TimeUnit.SECONDS).until(() -> !events.isEmpty());
+        assertThat(events).allSatisfy(event -> { // At-least-once: catch-up and notification may both deliver it.
+            assertThat(event.type()).isEqualTo(ProductChangeEvent.Type.CREATED);
+            assertThat(event.productId()).isEqualTo(product.getId());
+        });
+    }
+
+    /**
+     * Tests that a transaction which records its event first but commits last is still delivered, although
+     * the event of the other transaction, with a higher ID, was delivered before.
+     */
+    @Test
+    void testEventCommittedAfterAHigherOneIsDelivered() throws SQLException {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            first.setAutoCommit(false);
+            second.setAutoCommit(false);
+            long firstId = insertProduct(first, "Turntable"); // Takes the lower outbox ID...
+            long secondId = insertProduct(second, "Amplifier");
+            second.commit();
+
+            await().atMost(10, TimeUnit.SECONDS).until(() -> !events.isEmpty());
+            assertThat(events).extracting(ProductChangeEvent::productId).containsOnly(secondId);
+
+            first.commit(); // ...but commits last.
+
+            await().atMost(10, TimeUnit.SECONDS).until(() -> events.stream().anyMatch(event -> event.productId() == firstId));
+            assertThat(events.get(0).sequence()).isGreaterThan(events.get(events.size() - 1).sequence());
+        }
+    }
+
+    private static long insertProduct(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO product (id, name, price) VALUES (nextval('product_seq'), ?, 10) RETURNING id")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Dynamically configures Spring Boot's DataSource properties to connect to the Testcontainers PostgreSQL instance.
+     */
+    static class PostgresContainerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgresDatabase.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresDatabase.getUsername(),
+                    "spring.datasource.password=" + postgresDatabase.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgresDatabase.getDriverClassName(),
+                    "product.change-feed.enabled=true",
+                    "product.change-feed.max-backoff-ms=1000"
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductMetrics;
+import com.example.ProductOutboxMaintenance;
+import com.example.ProductOutboxRelay;
+import com.example.ProductRepository;
+import com.example.ProductService;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.cloud.spring.autoconfigure.core.GcpContextAutoConfiguration;
+import com.google.cloud.spring.autoconfigure.pubsub.GcpPubSubAutoConfiguration;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * **Integration Test** for the product outbox, with **Testcontainers-managed PostgreSQL and Pub/Sub emulator**.
+ * <p>
+ * Verifies that product changes are recorded in the outbox in their own transaction and relayed to Pub/Sub.
+ */
+@DataJpaTest(
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {ProductService.class, ProductCache.class, ProductMetrics.class, ProductOutboxRelay.class,
+                        ProductOutboxMaintenance.class}
+        ))
+@ImportAutoConfiguration({GcpContextAutoConfiguration.class, GcpPubSubAutoConfiguration.class}) // Not part of DataJpaTest.
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ProductOutboxIntegrationTest.ContainersInitializer.class)
+// Every service call commits on its own, so the relay sees the events as it would in production.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductOutboxIntegrationTest {
+
+    private static final String PROJECT_ID = "test-project";
+    private static final String TOPIC_NAME = "product-events";
+    private static final String SUBSCRIPTION_NAME = "product-events-test";
+
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductOutboxRelay productOutboxRelay;
+
+    @Autowired
+    private ProductOutboxMaintenance productOutboxMaintenance;
+
+    @Autowired
+    private ProductMetrics productMetrics;
+
+    @Autowired
+    private PubSubTemplate pubSubTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Empties the tables and the subscription before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM product_outbox"); // Also drops the events of the cleanup above.
+        while (!pubSubTemplate.pullAndAck(SUBSCRIPTION_NAME, 100, true).isEmpty()) {
+            // Acknowledges messages left over by a previous test.
+        }
+    }
+
+    /**
+     * Tests that creating, updating and deleting a product publishes one event each, and marks them published.
+     */
+    @Test
+    void testProductChangesArePublished() {
+        Product product = productService.createProduct(new Product(null, "Keyboard", 75.00));
+        productService.updateProduct(product.getId(), new Product(null, "Mechanical Keyboard", 95.00));
+        productService.deleteProduct(product.getId());
+        assertThat(pendingEvents()).isEqualTo(3); // Recorded by the writes themselves, before any relaying.
+
+        productOutboxRelay.relayPending();
+
+        assertThat(pendingEvents()).isZero();
+        List<PubsubMessage> messages = new ArrayList<>();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> {
+            messages.addAll(pubSubTemplate.pullAndAck(SUBSCRIPTION_NAME, 10, true));
+            return messages.size() >= 3;
+        });
+        assertThat(messages).extracting(message -> message.getAttributesOrThrow("event_type"))
+                .containsExactlyInAnyOrder("CREATED", "UPDATED", "DELETED");
+        assertThat(messages).extracting(message -> message.getAttributesOrThrow("product_id"))
+                .containsOnly(product.getId().toString());
+        assertThat(messages).filteredOn(message -> message.getAttributesOrThrow("event_type").equals("UPDATED"))
+                .singleElement()
+                .satisfies(message -> assertThat(message.getData().toStringUtf8()).contains("\"Mechanical Keyboard\""));
+        assertThat(productMetrics.getMeterRegistry().get("product.outbox.lag").timer().count()).isGreaterThanOrEqualTo(3);
+    }
+
+    /**
+     * Tests that a bulk insert is captured as one event per product, relayed over several batches.
+     */
+    @Test
+    void testBulkInsertIsRelayedInBatches() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            products.add(new Product(null, "Bulk " + i, i));
+        }
+        productService.createProducts(products);
+        assertThat(pendingEvents()).isEqualTo(1_200);
+
+        productOutboxRelay.relayPending(); // Drains the three batches of the default size of 500.
+
+        assertThat(pendingEvents()).isZero();
+    }
+
+    /**
+     * Tests that the events of a product carry its ID as ordering key, and that a product's later event is not
+     * published while an earlier one is still being relayed by another instance.
+     */
+    @Test
+    void testEventsOfAProductKeepTheirOrder() {
+        Product product = productService.createProduct(new Product(null, "Ordered", 10.00));
+        Product other = productService.createProduct(new Product(null, "Other", 20.00));
+        productService.updateProduct(product.getId(), new Product(null, "Ordered", 12.00));
+        jdbcTemplate.update("UPDATE product_outbox SET claimed_until = clock_timestamp() + interval '1 hour' "
+                + "WHERE product_id = ? AND event_type = 'CREATED'", product.getId()); // Held by another relay.
+
+        assertThat(productOutboxRelay.relayBatch()).isEqualTo(1); // Only the other product's event.
+        assertThat(jdbcTemplate.queryForList("SELECT event_type FROM product_outbox "
+                + "WHERE product_id = ? AND published_at IS NULL ORDER BY id", String.class, product.getId()))
+                .containsExactly("CREATED", "UPDATED");
+
+        jdbcTemplate.update("UPDATE product_outbox SET claimed_until = NULL"); // The other relay gave up.
+        assertThat(productOutboxRelay.relayBatch()).isEqualTo(2);
+
+        List<PubsubMessage> messages = new ArrayList<>();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> {
+            messages.addAll(pubSubTemplate.pullAndAck(SUBSCRIPTION_NAME, 10, true));
+            return messages.size() >= 3;
+        });
+        assertThat(messages).extracting(PubsubMessage::getOrderingKey).containsExactlyInAnyOrder(
+                product.getId().toString(), product.getId().toString(), other.getId().toString());
+    }
+
+    /**
+     * Tests that events leased by another relay are left alone until the lease expires.
+     */
+    @Test
+    void testLeasedEventsAreSkippedUntilTheLeaseExpires() {
+        productService.createProduct(new Product(null, "Leased", 10.00));
+        jdbcTemplate.update("UPDATE product_outbox SET claimed_until = clock_timestamp() + interval '1 hour'");
+
+        assertThat(productOutboxRelay.relayBatch()).isZero();
+        assertThat(pendingEvents()).isEqualTo(1);
+
+        jdbcTemplate.update("UPDATE product_outbox SET claimed_until = clock_timestamp() - interval '1 second'");
+
+        assertThat(productOutboxRelay.relayBatch()).isEqualTo(1); // The relay that held the lease died.
+        assertThat(pendingEvents()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM product_outbox WHERE claimed_until IS NOT NULL",
+                Long.class)).isZero();
+    }
+
+    /**
+     * Tests that a rolled-back change leaves no event behind.
+     */
+    @Test
+    void testRolledBackChangeIsNotRecorded() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            productService.createProduct(new Product(null, "Phantom", 10.00));
+            productRepository.flush(); // Runs the INSERT, and so the trigger, before the rollback.
+            assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM product_outbox", Long.class)).isEqualTo(1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM product_outbox", Long.class)).isZero();
+    }
+
+    /**
+     * Tests that only events published before the retention period are purged while the relay is enabled.
+     */
+    @Test
+    void testPurgeDeletesOldPublishedEvents() {
+        productService.createProducts(List.of(new Product(null, "Old", 1.00), new Product(null, "Recent", 2.00),
+                new Product(null, "Pending", 3.00)));
+        jdbcTemplate.update("UPDATE product_outbox SET published_at = clock_timestamp() - interval '2 days' "
+                + "WHERE payload ->> 'name' = 'Old'");
+        jdbcTemplate.update("UPDATE product_outbox SET published_at = clock_timestamp() "
+                + "WHERE payload ->> 'name' = 'Recent'");
+        jdbcTemplate.update("UPDATE product_outbox SET created_at = clock_timestamp() - interval '2 days' "
+                + "WHERE payload ->> 'name' = 'Pending'"); // Old, but still to be relayed.
+
+        assertThat(productOutboxMaintenance.purge()).isEqualTo(1);
+
+        assertThat(jdbcTemplate.queryForList("SELECT payload ->> 'name' FROM product_outbox", String.class))
+                .containsExactlyInAnyOrder("Recent", "Pending");
+    }
+
+    private long pendingEvents() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM product_outbox WHERE published_at IS NULL", Long.class);
+    }
+
+    /**
+     * The emulator does not check credentials.
+     */
+    @TestConfiguration
+    static class EmulatorCredentialsConfig {
+        @Bean
+        CredentialsProvider googleCredentials() {
+            return NoCredentialsProvider.create();
+        }
+    }
+
+    /**
+     * Points the DataSource at the cloned database and the Pub/Sub client at the shared emulator, whose topic and
+     * subscription are provisioned before the relay starts.
+     */
+    static class ContainersInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            PubSubTestEmulator.provision(PROJECT_ID, TOPIC_NAME, SUBSCRIPTION_NAME);
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgresDatabase.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresDatabase.getUsername(),
+                    "spring.datasource.password=" + postgresDatabase.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgresDatabase.getDriverClassName(),
+                    "spring.cloud.gcp.project-id=" + PROJECT_ID,
+                    "spring.cloud.gcp.pubsub.project-id=" + PROJECT_ID,
+                    "spring.cloud.gcp.pubsub.emulator-host=" + PubSubTestEmulator.getEmulatorEndpoint(),
+                    "product.outbox.relay.enabled=true",
+                    "product.outbox.topic=" + TOPIC_NAME
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductMetrics;
+import com.example.ProductRepository;
+import com.example.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * **Statement regression tests** for {@link ProductService} with a **Testcontainers-managed PostgreSQL database**.
+ * <p>
+ * Each test records the SQL statements of one service call with the {@link SqlStatementRecorder} and checks
+ * how many are sent, whether bulk paths are batched, that none is slow, and which tables are read in full,
+ * so N+1 queries, lost batching and missing indexes fail the build instead of reaching production.
+ */
+@DataJpaTest(
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {ProductService.class, ProductCache.class, ProductMetrics.class}
+        ))
+@Import(SqlStatementRecorder.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ProductServiceStatementsIntegrationTest.PostgresContainerInitializer.class)
+// Every service call commits on its own, so the statements Hibernate defers to the flush are recorded too.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductServiceStatementsIntegrationTest {
+
+    private static final Duration STATEMENT_BUDGET = Duration.ofMillis(500); // Generous, to stay stable on slow CI hosts.
+
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private SqlStatementRecorder sqlStatementRecorder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Product cable;
+    private Product keyboard;
+
+    /**
+     * Loads a small catalog, so queries have rows to find.
+     */
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        cable = productService.createProduct(new Product(null, "Cable 1m", 5.00));
+        keyboard = productService.createProduct(new Product(null, "Keyboard", 75.00));
+        productService.createProduct(new Product(null, "Cable 2m", 8.00));
+        productService.createProduct(new Product(null, "Adapter", 15.00));
+        productService.createProduct(new Product(null, "Monitor", 300.00));
+    }
+
+    /**
+     * Tests that creating a product sends a single insert.
+     */
+    @Test
+    void testCreateProduct() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(
+                () -> productService.createProduct(new Product(null, "Mouse", 25.00)));
+
+        assertThat(capture.startingWith("insert into product")).hasSize(1);
+        assertStatements(capture, 1 + sequenceCalls(capture));
+    }
+
+    /**
+     * Tests that bulk creation sends JDBC batches instead of one insert per product.
+     */
+    @Test
+    void testCreateProductsIsBatched() {
+        List<Product> products = IntStream.range(0, 120).mapToObj(i -> new Product(null, "Bulk " + i, i)).toList();
+
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(() -> productService.createProducts(products));
+
+        assertThat(capture.startingWith("insert into product"))
+                .extracting(SqlStatementRecorder.RecordedStatement::batchSize)
+                .containsExactly(50, 50, 20); // One JDBC batch per product.bulk.batch-size rows.
+        assertStatements(capture, 3 + sequenceCalls(capture));
+    }
+
+    /**
+     * Tests that listing all products is a single query.
+     */
+    @Test
+    void testGetAllProducts() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(productService::getAllProducts);
+
+        assertStatements(capture, 1, "product"); // Reads the whole table by design.
+    }
+
+    /**
+     * Tests that keyset pagination seeks through the primary key index.
+     */
+    @Test
+    void testGetProductsAfter() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(
+                () -> productService.getProductsAfter(cable.getId(), 2));
+
+        assertStatements(capture, 1);
+    }
+
+    /**
+     * Tests that streaming all products is a single cursor query, whatever the fetch size.
+     */
+    @Test
+    void testStreamAllProducts() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(() -> transaction.executeWithoutResult(status -> {
+            try (Stream<Product> products = productService.streamAllProducts(2)) {
+                assertThat(products.count()).isEqualTo(5); // Fetched through one cursor, not one query per page.
+            }
+        }));
+
+        assertStatements(capture, 1, "product"); // Reads the whole table by design.
+    }
+
+    /**
+     * Tests that the price and name searches are single queries served by the indexes.
+     */
+    @Test
+    void testSearches() {
+        assertStatements(sqlStatementRecorder.capture(() -> productService.searchByPriceRange(5.00, 20.00, 10)), 1);
+        assertStatements(sqlStatementRecorder.capture(() -> productService.searchByNamePrefix("Cab", 10)), 1);
+        assertStatements(sqlStatementRecorder.capture(() -> productService.searchByNameContaining("ble", 10)), 1);
+        assertStatements(sqlStatementRecorder.capture(() -> productService.getCheapestProducts(3)), 1);
+    }
+
+    /**
+     * Tests that the statistics are read from the counters without scanning the product table.
+     */
+    @Test
+    void testGetProductStatistics() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(productService::getProductStatistics);
+
+        assertStatements(capture, 2, "product_stats"); // Sums the counters, at most 64 rows per shard.
+    }
+
+    /**
+     * Tests that the price history lookups are single queries served by the indexes of the history partitions.
+     */
+    @Test
+    void testPriceHistory() {
+        Instant now = Instant.now();
+
+        assertStatements(sqlStatementRecorder.capture(() -> productService.getPriceAt(keyboard.getId(), now)), 1);
+        assertStatements(sqlStatementRecorder.capture(
+                () -> productService.getPriceChanges(keyboard.getId(), now.minusSeconds(3600), now)), 1);
+        assertStatements(sqlStatementRecorder.capture(
+                () -> productService.getPriceChangesBetween(now.minusSeconds(3600), now, 10)), 1);
+    }
+
+    /**
+     * Tests that a product is read once, then served from the cache.
+     */
+    @Test
+    void testGetProductByIdIsCached() {
+        assertStatements(sqlStatementRecorder.capture(() -> productService.getProductById(keyboard.getId())), 1);
+        assertStatements(sqlStatementRecorder.capture(() -> productService.getProductById(keyboard.getId())), 0);
+    }
+
+    /**
+     * Tests the statements of a full product update.
+     */
+    @Test
+    void testUpdateProduct() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(
+                () -> productService.updateProduct(keyboard.getId(), new Product(null, "Keyboard", 60.00)));
+
+        // The product is read, then read again when saving merges the detached copy, then updated.
+        assertThat(capture.startingWith("update product")).hasSize(1);
+        assertStatements(capture, 3);
+    }
+
+    /**
+     * Tests that a versioned patch is a single update.
+     */
+    @Test
+    void testPatchProduct() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(
+                () -> productService.patchProduct(keyboard.getId(), keyboard.getVersion(), null, 60.00));
+
+        assertStatements(capture, 1); // No read before the update.
+    }
+
+    /**
+     * Tests that bulk repricing sends one JDBC batch.
+     */
+    @Test
+    void testRepriceProductsIsBatched() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(
+                () -> productService.repriceProducts(Map.of(cable.getId(), 6.00, keyboard.getId(), 70.00)));
+
+        assertThat(capture.statements()).extracting(SqlStatementRecorder.RecordedStatement::batchSize).containsExactly(2);
+        assertStatements(capture, 1);
+    }
+
+    /**
+     * Tests that bulk upserts send one statement per chunk, not one per product.
+     */
+    @Test
+    void testUpsertProducts() {
+        List<Product> products = IntStream.range(0, 120)
+                .mapToObj(i -> new Product(null, "SKU-" + i, "Upserted " + i, i)).toList();
+
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(() -> productService.upsertProducts(products));
+
+        assertStatements(capture, 3); // One statement per product.bulk.batch-size products.
+    }
+
+    /**
+     * Tests the statements of a single delete.
+     */
+    @Test
+    void testDeleteProduct() {
+        SqlStatementRecorder.Capture capture = sqlStatementRecorder.capture(
+                () -> productService.deleteProduct(keyboard.getId()));
+
+        assertStatements(capture, 2); // Spring Data loads the product before removing it.
+    }
+
+    /**
+     * Tests that the bulk deletes are single statements served by the indexes.
+     */
+    @Test
+    void testBulkDeletes() {
+        assertStatements(sqlStatementRecorder.capture(
+                () -> productService.deleteProducts(List.of(cable.getId(), keyboard.getId()))), 1);
+        assertStatements(sqlStatementRecorder.capture(() -> productService.deleteProductsByPriceRange(200.00, 400.00)), 1);
+        assertStatements(sqlStatementRecorder.capture(() -> productService.deleteProductsByNamePrefix("Cab")), 1);
+    }
+
+    /**
+     * Checks the number of statements, that none exceeded the budget, and which tables were read in full.
+     */
+    private static void assertStatements(SqlStatementRecorder.Capture capture, int expectedCount,
+                                         String... fullyScannedTables) {
+        assertThat(capture.statements()).as("recorded statements").hasSize(expectedCount);
+        assertThat(capture.slowest()).isLessThan(STATEMENT_BUDGET);
+        assertThat(capture.fullScans()).as("tables read in full").containsExactly(fullyScannedTables);
+    }
+
+    /**
+     * @return The number of times Hibernate reserved a block of IDs, which depends on the IDs left from earlier inserts.
+     */
+    private static int sequenceCalls(SqlStatementRecorder.Capture capture) {
+        return capture.startingWith("select nextval").size();
+    }
+
+    /**
+     * Dynamically configures Spring Boot's DataSource properties to connect to the Testcontainers PostgreSQL instance.
+     */
+    static class PostgresContainerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgresDatabase.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresDatabase.getUsername(),
+                    "spring.datasource.password=" + postgresDatabase.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgresDatabase.getDriverClassName(),
+                    "product.bulk.batch-size=50"
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductMetrics;
+import com.example.ProductRepository;
+import com.example.ProductService;
+import com.example.ProductStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * **Integration Test** for the incrementally maintained product statistics, with a
+ * **Testcontainers-managed PostgreSQL database**.
+ */
+@DataJpaTest(
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {ProductService.class, ProductCache.class, ProductMetrics.class}
+        ))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ProductStatisticsIntegrationTest.PostgresContainerInitializer.class)
+// Concurrent writers must commit on their own, instead of joining one test transaction.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStatisticsIntegrationTest {
+
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Cleans up the database before each test. Ensures test isolation.
+     */
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch(); // Also brings the counters back to zero, through the triggers.
+    }
+
+    /**
+     * Tests that creates, updates and deletes, single and bulk, keep the statistics exact.
+     */
+    @Test
+    void testStatisticsFollowWrites() {
+        assertThat(productService.getProductStatistics().count()).isZero();
+
+        Product mouse = productService.createProduct(new Product(null, "Mouse", 0.50)); // Bucket [0, 1).
+        Product keyboard = productService.createProduct(new Product(null, "Keyboard", 75.00)); // Bucket [64, 128).
+        productService.createProducts(List.of(new Product(null, "Cable", 3.00), new Product(null, "Hub", 30.00)));
+        productService.updateProduct(keyboard.getId(), new Product(null, "Keyboard", 100.00)); // Same bucket.
+        productService.repriceProducts(Map.of(mouse.getId(), 2.00)); // Moves to bucket [2, 4).
+        productService.deleteProductsByPriceRange(25.00, 35.00); // Deletes the hub.
+
+        ProductStatistics statistics = productService.getProductStatistics();
+        assertThat(statistics.count()).isEqualTo(3);
+        assertThat(statistics.averagePrice()).isCloseTo((2.00 + 100.00 + 3.00) / 3, within(1e-9));
+        assertThat(statistics.minPrice()).isEqualTo(2.00);
+        assertThat(statistics.maxPrice()).isEqualTo(100.00);
+        assertThat(statistics.histogram()).containsExactly(
+                new ProductStatistics.PriceBucket(2.00, 4.00, 2), // The mouse and the cable.
+                new ProductStatistics.PriceBucket(64.00, 128.00, 1));
+    }
+
+    /**
+     * Tests that the statistics match a full scan after many concurrent writers.
+     */
+    @Test
+    void testStatisticsStayExactUnderConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        Product product = productService.createProduct(
+                                new Product(null, "Concurrent", ThreadLocalRandom.current().nextDouble(0, 1000)));
+                        if (i % 5 == 0) {
+                            productService.deleteProduct(product.getId());
+                        } else if (i % 3 == 0) {
+                            productService.updateProduct(product.getId(),
+                                    new Product(null, "Concurrent", ThreadLocalRandom.current().nextDouble(0, 1000)));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ProductStatistics statistics = productService.getProductStatistics();
+        Map<String, Object> scan = jdbcTemplate.queryForMap("SELECT count(*) AS count, avg(price) AS avg FROM product");
+        assertThat(statistics.count()).isEqualTo(((Number) scan.get("count")).longValue()).isEqualTo(8 * 40);
+        assertThat(statistics.averagePrice()).isCloseTo(((Number) scan.get("avg")).doubleValue(), within(1e-6));
+        assertThat(statistics.histogram()).extracting(ProductStatistics.PriceBucket::count)
+                .containsExactlyElementsOf(jdbcTemplate.queryForList(
+                        "SELECT count(*) FROM product GROUP BY product_price_bucket(price) "
+                                + "ORDER BY product_price_bucket(price)", Long.class));
+    }
+
+    /**
+     * Dynamically configures Spring Boot's DataSource properties to connect to the Testcontainers PostgreSQL instance.
+     */
+    static class PostgresContainerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "spring.datasource.url=" + postgresDatabase.getJdbcUrl(),
+                    "spring.datasource.username=" + postgresDatabase.getUsername(),
+                    "spring.datasource.password=" + postgresDatabase.getPassword(),
+                    "spring.datasource.driver-class-name=" + postgresDatabase.getDriverClassName()
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
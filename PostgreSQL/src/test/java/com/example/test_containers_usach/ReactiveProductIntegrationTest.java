@@ -0,0 +1,150 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ReactivePersistenceConfiguration;
+import com.example.ReactiveProductRepository;
+import com.example.ReactiveProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * **Integration Test** for the reactive R2DBC stack with a **Testcontainers-managed PostgreSQL database**.
+ * <p>
+ * Covers the same scenarios as {@link PostgresIntegrationTest}, through {@link ReactiveProductService}.
+ */
+@SpringBootTest
+@ContextConfiguration(classes = ReactiveProductIntegrationTest.TestConfig.class,
+        initializers = ReactiveProductIntegrationTest.R2dbcContainerInitializer.class)
+class ReactiveProductIntegrationTest {
+
+    static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+
+    @Autowired
+    private ReactiveProductService reactiveProductService;
+
+    /**
+     * Tests saving a product and then retrieving it by ID.
+     */
+    @Test
+    void testSaveAndFindProduct() {
+        Product savedProduct = reactiveProductService.createProduct(new Product(null, "Laptop", 1200.00)).block();
+
+        assertThat(savedProduct).isNotNull();
+        assertThat(savedProduct.getId()).isNotNull(); // Verifies ID was generated.
+
+        StepVerifier.create(reactiveProductService.getProductById(savedProduct.getId()))
+                .assertNext(product -> assertThat(product.getName()).isEqualTo("Laptop"))
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that the SKU is stored on insert, read back, and kept by updates.
+     */
+    @Test
+    void testSkuRoundTrip() {
+        Product savedProduct = reactiveProductService.createProduct(new Product(null, "KB-1", "Keyboard", 75.00)).block();
+
+        assertThat(savedProduct.getSku()).isEqualTo("KB-1");
+        StepVerifier.create(reactiveProductService.getProductById(savedProduct.getId()))
+                .assertNext(product -> assertThat(product.getSku()).isEqualTo("KB-1"))
+                .verifyComplete();
+        StepVerifier.create(reactiveProductService.updateProduct(savedProduct.getId(), new Product(null, "Keyboard", 60.00)))
+                .assertNext(updated -> assertThat(updated.getSku()).isEqualTo("KB-1"))
+                .verifyComplete();
+    }
+
+    /**
+     * Tests that creating a product with a negative price signals an IllegalArgumentException.
+     */
+    @Test
+    void testCreateProductWithNegativePriceFails() {
+        StepVerifier.create(reactiveProductService.createProduct(new Product(null, "Invalid", -1.00)))
+                .expectErrorMessage("Product price cannot be negative")
+                .verify();
+    }
+
+    /**
+     * Tests that all products are streamed, including with a subscriber requesting a few rows at a time.
+     */
+    @Test
+    void testGetAllProductsWithBackpressure() {
+        Flux.range(0, 20)
+                .concatMap(i -> reactiveProductService.createProduct(new Product(null, "Streamed " + i, i)))
+                .blockLast();
+
+        StepVerifier.create(reactiveProductService.getAllProducts().filter(p -> p.getName().startsWith("Streamed ")), 5)
+                .expectNextCount(5) // Only the requested rows are emitted.
+                .thenRequest(15)
+                .expectNextCount(15)
+                .verifyComplete();
+    }
+
+    /**
+     * Tests updating an existing product's details, and updating a missing one.
+     */
+    @Test
+    void testUpdateProduct() {
+        Product product = reactiveProductService.createProduct(new Product(null, "Monitor", 300.00)).block();
+
+        StepVerifier.create(reactiveProductService.updateProduct(product.getId(), new Product(null, "New Monitor", 350.00)))
+                .assertNext(updated -> {
+                    assertThat(updated.getName()).isEqualTo("New Monitor");
+                    assertThat(updated.getPrice()).isEqualTo(350.00);
+                    assertThat(updated.getVersion()).isEqualTo(product.getVersion() + 1);
+                })
+                .verifyComplete();
+
+        StepVerifier.create(reactiveProductService.updateProduct(-1L, new Product(null, "Missing", 1.00)))
+                .expectErrorMessage("Product not found with ID: -1")
+                .verify();
+    }
+
+    /**
+     * Tests deleting a product from the database.
+     */
+    @Test
+    void testDeleteProduct() {
+        Product product = reactiveProductService.createProduct(new Product(null, "Webcam", 50.00)).block();
+
+        StepVerifier.create(reactiveProductService.deleteProduct(product.getId())).verifyComplete();
+        StepVerifier.create(reactiveProductService.getProductById(product.getId())).verifyComplete(); // Empty.
+    }
+
+    /**
+     * Only the reactive stack is loaded; the schema comes migrated with the cloned database.
+     */
+    @Configuration
+    @Import({ReactivePersistenceConfiguration.class, ReactiveProductRepository.class, ReactiveProductService.class,
+            ProductCache.class})
+    static class TestConfig {
+    }
+
+    /**
+     * Points the R2DBC connection factory at the cloned database.
+     */
+    static class R2dbcContainerInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "product.reactive.enabled=true",
+                    "product.r2dbc.url=r2dbc:postgresql://" + postgresDatabase.getHost() + ":"
+                            + postgresDatabase.getPort() + "/"
+                            + postgresDatabase.getDatabaseName(),
+                    "product.r2dbc.username=" + postgresDatabase.getUsername(),
+                    "product.r2dbc.password=" + postgresDatabase.getPassword()
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
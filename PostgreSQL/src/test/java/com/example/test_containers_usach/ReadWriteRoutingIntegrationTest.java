@@ -0,0 +1,129 @@
+package com.example.test_containers_usach;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductMetrics;
+import com.example.ProductService;
+import com.example.ReadWriteRoutingConfiguration;
+import com.example.ReadWriteRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * **Integration Test** for read/write splitting with **two PostgreSQL databases cloned from the migrated template**,
+ * standing in for a primary and its replica.
+ * <p>
+ * The two databases are not replicated, so the test can tell which one served a read by its content.
+ */
+@DataJpaTest(
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {ProductService.class, ProductCache.class, ProductMetrics.class, ReadWriteRoutingConfiguration.class}
+        ))
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(initializers = ReadWriteRoutingIntegrationTest.RoutingInitializer.class)
+// Each service call must run in its own transaction, so that read-only ones can be routed to the replica.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReadWriteRoutingIntegrationTest {
+
+    static final PostgresTestDatabase primaryDatabase = PostgresTestDatabase.create(); // Cloned from the migrated template.
+    static final PostgresTestDatabase replicaDatabase = PostgresTestDatabase.create();
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Tests that writes go to the primary, reads right after a write stay on the primary,
+     * and reads go back to the replica once the read-your-writes window has passed.
+     */
+    @Test
+    void testReadsUseReplicaExceptRightAfterAWrite() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(
+                replicaDatabase.getJdbcUrl(), replicaDatabase.getUsername(), replicaDatabase.getPassword()));
+        replica.update("INSERT INTO product (id, name, price) VALUES (nextval('product_seq'), 'Replica only', 1.00)");
+
+        productService.createProduct(new Product(null, "Primary write", 2.00)); // Routed to the primary.
+
+        // Within the window, this thread's reads see its own write on the primary.
+        assertThat(productService.getAllProducts()).extracting(Product::getName).containsExactly("Primary write");
+
+        // Afterwards, read-only transactions are served by the replica again.
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(productService.getAllProducts()).extracting(Product::getName).containsExactly("Replica only"));
+    }
+
+    /**
+     * Tests that the read-your-writes window follows the client bound with {@code callAs}, not the thread:
+     * the client's next request reads its write from the primary on another thread, and other clients do not.
+     */
+    @Test
+    void testReadYourWritesFollowsTheClient() throws Exception {
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            requests.submit(() -> ReadWriteRoutingDataSource.callAs("client-1",
+                    () -> productService.createProduct(new Product(null, "Client write", 3.00)))).get();
+
+            List<Product> sameClient = requests.submit(() -> ReadWriteRoutingDataSource.callAs("client-1",
+                    productService::getAllProducts)).get();
+            List<Product> otherClient = requests.submit(() -> ReadWriteRoutingDataSource.callAs("client-2",
+                    productService::getAllProducts)).get();
+
+            assertThat(sameClient).extracting(Product::getName).contains("Client write");
+            assertThat(otherClient).extracting(Product::getName).doesNotContain("Client write");
+        }
+    }
+
+    /**
+     * Tests that a product missing from the replica can be updated, even once the read-your-writes window has
+     * passed: the update reads and writes it on the primary, in one transaction.
+     */
+    @Test
+    void testUpdateRightAfterCreateUsesThePrimary() {
+        Product product = productService.createProduct(new Product(null, "Monitor", 200.00));
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> // Plain reads are served by the replica again.
+                assertThat(productService.getAllProducts()).extracting(Product::getName).doesNotContain("Monitor"));
+
+        Product updated = productService.updateProduct(product.getId(), new Product(null, "Monitor", 180.00));
+
+        assertThat(updated.getPrice()).isEqualTo(180.00);
+        assertThat(updated.getVersion()).isEqualTo(product.getVersion() + 1);
+    }
+
+    /**
+     * Points both pools at their database.
+     */
+    static class RoutingInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                    "product.datasource.routing.enabled=true",
+                    "product.datasource.routing.read-your-writes-window-ms=1000",
+                    "product.datasource.primary.jdbc-url=" + primaryDatabase.getJdbcUrl(),
+                    "product.datasource.primary.username=" + primaryDatabase.getUsername(),
+                    "product.datasource.primary.password=" + primaryDatabase.getPassword(),
+                    "product.datasource.replica.jdbc-url=" + replicaDatabase.getJdbcUrl(),
+                    "product.datasource.replica.username=" + replicaDatabase.getUsername(),
+                    "product.datasource.replica.password=" + replicaDatabase.getPassword(),
+                    "spring.jpa.hibernate.ddl-auto=validate"
+            ).applyTo(applicationContext.getEnvironment());
+        }
+    }
+}
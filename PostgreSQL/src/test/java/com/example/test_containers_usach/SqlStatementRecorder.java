@@ -0,0 +1,336 @@
+package com.example.test_containers_usach;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Test support that records the SQL statements a block of code sends through the application's
+ * {@link DataSource}, so tests can catch N+1 queries, missing batching, slow statements and
+ * full table scans before they ship.
+ * <p>
+ * Import it into a test context with {@code @Import(SqlStatementRecorder.class)}: it wraps the
+ * {@link DataSource} bean, and {@link #capture(Runnable)} then records every statement executed on
+ * the calling thread while the block runs, with its parameters, batch size and execution time.
+ * Statements of other threads, such as background jobs, are ignored, as are COPY operations, which
+ * bypass JDBC statements.
+ */
+public class SqlStatementRecorder implements BeanPostProcessor {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ThreadLocal<List<RecordedStatement>> recording = new ThreadLocal<>();
+    private volatile DataSource target; // The unwrapped data source, used to explain statements without recording them.
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)) {
+            target = dataSource;
+            return new RecordingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    /**
+     * Runs a block and records the statements it executes on the calling thread.
+     *
+     * @param block The code to run, typically a single service call.
+     * @return The recorded statements.
+     */
+    public Capture capture(Runnable block) {
+        List<RecordedStatement> statements = new ArrayList<>();
+        List<RecordedStatement> previous = recording.get();
+        recording.set(statements);
+        try {
+            block.run();
+        } finally {
+            recording.set(previous); // Allows nested captures.
+        }
+        return new Capture(List.copyOf(statements), target);
+    }
+
+    /**
+     * A statement sent to the database.
+     *
+     * @param sql        The SQL text, with {@code ?} placeholders.
+     * @param parameters The bound parameters: one list per execution, or per batch entry for batches.
+     * @param batched    Whether the statement was sent as a JDBC batch.
+     * @param elapsed    The time spent executing the statement, not counting reading its results.
+     */
+    public record RecordedStatement(String sql, List<List<Object>> parameters, boolean batched, Duration elapsed) {
+
+        /**
+         * @return The number of batch entries, or 0 if the statement was not batched.
+         */
+        public int batchSize() {
+            return batched ? parameters.size() : 0;
+        }
+
+        /**
+         * @param prefix The SQL prefix, such as {@code "insert into product"}.
+         * @return Whether the SQL text starts with the prefix, ignoring case and leading whitespace.
+         */
+        public boolean startsWith(String prefix) {
+            return sql.stripLeading().toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * The statements recorded by one {@link #capture(Runnable)} call.
+     */
+    public static final class Capture {
+
+        private final List<RecordedStatement> statements;
+        private final DataSource dataSource;
+
+        private Capture(List<RecordedStatement> statements, DataSource dataSource) {
+            this.statements = statements;
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * @return The recorded statements, in execution order.
+         */
+        public List<RecordedStatement> statements() {
+            return statements;
+        }
+
+        /**
+         * @return The number of round trips: a JDBC batch counts as one statement.
+         */
+        public int count() {
+            return statements.size();
+        }
+
+        /**
+         * @param prefix The SQL prefix, such as {@code "select"} or {@code "insert into product"}.
+         * @return The recorded statements whose SQL starts with the prefix, ignoring case.
+         */
+        public List<RecordedStatement> startingWith(String prefix) {
+            return statements.stream().filter(statement -> statement.startsWith(prefix)).toList();
+        }
+
+        /**
+         * @return The longest execution time of any recorded statement, or zero if none was recorded.
+         */
+        public Duration slowest() {
+            return statements.stream().map(RecordedStatement::elapsed).max(Duration::compareTo).orElse(Duration.ZERO);
+        }
+
+        /**
+         * Explains every recorded query and DML statement with its recorded parameters, and returns the
+         * tables that are read in full.
+         * <p>
+         * Test tables are tiny, so the planner would happily scan them whatever the indexes. Statements are
+         * therefore planned with {@code enable_seqscan = off}, which makes the planner use any applicable
+         * index; a table still counts as read in full when the plan scans it sequentially, or walks a whole
+         * index without an index condition, unless that walk is unfiltered and directly below a
+         * {@code LIMIT}, as in top-N queries reading an index in order.
+         *
+         * @return The names of the tables read in full, in alphabetical order.
+         */
+        public Set<String> fullScans() {
+            Set<String> tables = new TreeSet<>();
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET LOCAL enable_seqscan = off"); // Reverted by the rollback below.
+                }
+                for (RecordedStatement recorded : statements) {
+                    if (isExplainable(recorded)) {
+                        collectFullScans(explain(connection, recorded).path("Plan"), false, tables);
+                    }
+                }
+                connection.rollback();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to explain the recorded statements", e);
+            }
+            return tables;
+        }
+
+        private static boolean isExplainable(RecordedStatement statement) {
+            return statement.startsWith("select") || statement.startsWith("with") || statement.startsWith("insert")
+                    || statement.startsWith("update") || statement.startsWith("delete");
+        }
+
+        private static JsonNode explain(Connection connection, RecordedStatement recorded) throws SQLException {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + recorded.sql())) {
+                List<Object> parameters = recorded.parameters().isEmpty() ? List.of() : recorded.parameters().get(0);
+                for (int i = 0; i < parameters.size(); i++) {
+                    if (parameters.get(i) instanceof NullValue nullValue) {
+                        statement.setNull(i + 1, nullValue.sqlType());
+                    } else {
+                        statement.setObject(i + 1, parameters.get(i));
+                    }
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return OBJECT_MAPPER.readTree(resultSet.getString(1)).get(0);
+                }
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unreadable plan for: " + recorded.sql(), e);
+            }
+        }
+
+        private static void collectFullScans(JsonNode plan, boolean belowLimit, Set<String> tables) {
+            String nodeType = plan.path("Node Type").asText();
+            boolean fullIndexScan = (nodeType.equals("Index Scan") || nodeType.equals("Index Only Scan"))
+                    && !plan.has("Index Cond") && !(belowLimit && !plan.has("Filter"));
+            if (nodeType.equals("Seq Scan") || fullIndexScan) {
+                tables.add(plan.path("Relation Name").asText());
+            }
+            for (JsonNode child : plan.path("Plans")) {
+                collectFullScans(child, nodeType.equals("Limit"), tables);
+            }
+        }
+    }
+
+    /**
+     * A parameter bound with {@code setNull}, replayed with the same SQL type when explaining.
+     */
+    private record NullValue(int sqlType) {
+    }
+
+    /**
+     * Hands out connections whose statements report to the recording of the calling thread.
+     */
+    private final class RecordingDataSource extends DelegatingDataSource {
+
+        private RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recordingConnection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recordingConnection(super.getConnection(username, password));
+        }
+    }
+
+    private Connection recordingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) { // From createStatement, prepareStatement or prepareCall.
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return proxy(method.getReturnType(), result, new StatementRecorder(statement, sql));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Tracks the parameters and batches of one statement, and records each execution.
+     */
+    private final class StatementRecorder implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql; // Null for plain statements, which pass their SQL to each execute call.
+        private final List<Object> parameters = new ArrayList<>();
+        private final List<List<Object>> batch = new ArrayList<>();
+        private final List<String> batchSql = new ArrayList<>(); // Plain statement batches.
+
+        private StatementRecorder(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                setParameter(index, name.equals("setNull") ? new NullValue((Integer) args[1]) : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.equals("addBatch")) {
+                if (args != null && args.length == 1) {
+                    batchSql.add((String) args[0]);
+                } else {
+                    batch.add(List.copyOf(parameters));
+                }
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+                batchSql.clear();
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            return SqlStatementRecorder.invoke(statement, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            List<RecordedStatement> statements = recording.get();
+            if (statements == null) {
+                return SqlStatementRecorder.invoke(statement, method, args);
+            }
+            boolean batched = method.getName().equals("executeBatch") || method.getName().equals("executeLargeBatch");
+            long start = System.nanoTime();
+            try {
+                return SqlStatementRecorder.invoke(statement, method, args);
+            } finally {
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                if (batched && !batchSql.isEmpty()) {
+                    batchSql.forEach(sql -> statements.add(new RecordedStatement(sql, List.of(), true, elapsed)));
+                } else if (batched) {
+                    statements.add(new RecordedStatement(preparedSql, List.copyOf(batch), true, elapsed));
+                } else {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                    List<List<Object>> bound = sql.equals(preparedSql) ? List.of(List.copyOf(parameters)) : List.of();
+                    statements.add(new RecordedStatement(sql, bound, false, elapsed));
+                }
+                if (batched) {
+                    batch.clear(); // The driver clears its batch after executing it.
+                    batchSql.clear();
+                }
+            }
+        }
+
+        private void setParameter(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(new NullValue(Types.NULL)); // List.copyOf rejects nulls.
+            }
+            parameters.set(index - 1, value == null ? new NullValue(Types.NULL) : value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SqlStatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "Recording " + target;
+                    default -> handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause(); // Rethrows the SQLException itself, not the reflection wrapper.
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
+
+@SpringBootApplication
+// The module defaults, under a name of their own so they do not clash with the PostgreSQL module's on a shared classpath.
+// An application.properties, or any other property source, still overrides them.
+@PropertySource("classpath:pubsub.properties")
+public class PubSubApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(PubSubApplication.class, args);
+    }
+}
\ No newline at end of file
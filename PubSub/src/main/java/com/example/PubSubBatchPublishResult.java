@@ -0,0 +1,32 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * The outcomes of publishing many messages at once.
+ *
+ * @param results One result per message, in the order the messages were given.
+ */
+public record PubSubBatchPublishResult(List<PubSubPublishResult> results) {
+
+    /**
+     * @return The number of messages Pub/Sub accepted.
+     */
+    public long successCount() {
+        return results.stream().filter(PubSubPublishResult::isSuccessful).count();
+    }
+
+    /**
+     * @return The results of the messages that could not be published, for example to retry them.
+     */
+    public List<PubSubPublishResult> failures() {
+        return results.stream().filter(result -> !result.isSuccessful()).toList();
+    }
+
+    /**
+     * @return Whether every message was published.
+     */
+    public boolean isSuccessful() {
+        return results.stream().allMatch(PubSubPublishResult::isSuccessful);
+    }
+}
@@ -5,40 +5,127 @@ import com.google.cloud.spring.pubsub.integration.AckMode;
 import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
 import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
 import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.pubsub.v1.PubsubMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Handles incoming Pub/Sub messages, integrating with Spring Integration.
+ * <p>
+ * By default, messages are processed one at a time on the subscriber's callback thread. With
+ * {@code pubsub.listener.concurrency} above one, they are handed to that many stripe threads instead: messages
+ * sharing an ordering key are processed one after the other, in delivery order, while messages with different
+ * keys are processed in parallel. The key is the message's ordering key, or the value of the
+ * {@code pubsub.listener.ordering-attribute} attribute when that property is set and the attribute is present.
+ * Pub/Sub only delivers messages of a key in publish order when the subscription has message ordering enabled.
+ * Each stripe queues at most {@code pubsub.listener.stripe-queue-capacity} messages; once a stripe's queue is
+ * full, the subscriber's callback thread waits for room, which holds back further deliveries.
+ * <p>
+ * Received messages are stored in a buffer of {@code pubsub.listener.buffer-capacity} messages, allocated
+ * upfront, as {@link PubSubReceivedMessage}s that their consumer acknowledges once it has processed them. Until
+ * then, the subscriber extends their ack deadline, so slow processing does not lead to redeliveries, and its
+ * flow control ({@code spring.cloud.gcp.pubsub.subscriber.flow-control}) stops pulling new messages when its
+ * limits on outstanding messages and bytes are reached. If the buffer fills up first, processing waits for room.
+ * The buffer depth and its high-water mark are published as the {@code pubsub.listener.buffer.depth} and
+ * {@code pubsub.listener.buffer.high.water.mark} gauges.
  */
 @Component
-public class PubSubListener {
+public class PubSubListener implements DisposableBean, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PubSubListener.class);
 
     private final String subscriptionName = "example-subscription"; // The Pub/Sub subscription name to listen to.
 
-    private final BlockingQueue<String> receivedMessages = new LinkedBlockingQueue<>(); // Stores messages as they arrive.
+    private final BlockingQueue<PubSubReceivedMessage> receivedMessages; // Stores messages as they arrive.
+    private final AtomicInteger highWaterMark = new AtomicInteger(); // The deepest the buffer has been.
+
+    private final String orderingAttribute;
+    private final StripedExecutor stripes; // Null when messages are processed on the callback thread.
 
+    /**
+     * @param concurrency         The number of messages processed at once; {@code 1} processes them on the
+     *                            subscriber's callback thread.
+     * @param orderingAttribute   The attribute whose value serializes processing, or empty to use the ordering key.
+     * @param bufferCapacity      The number of received messages buffered before processing waits for room.
+     * @param stripeQueueCapacity The number of messages queued per stripe before the callback thread waits.
+     */
+    public PubSubListener(@Value("${pubsub.listener.concurrency:1}") int concurrency,
+                          @Value("${pubsub.listener.ordering-attribute:}") String orderingAttribute,
+                          @Value("${pubsub.listener.buffer-capacity:1000}") int bufferCapacity,
+                          @Value("${pubsub.listener.stripe-queue-capacity:100}") int stripeQueueCapacity) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Listener concurrency must be positive");
+        }
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Listener buffer capacity must be positive");
+        }
+        this.receivedMessages = new ArrayBlockingQueue<>(bufferCapacity); // One preallocated array, no node per message.
+        this.orderingAttribute = orderingAttribute;
+        this.stripes = concurrency > 1 ? new StripedExecutor(concurrency, stripeQueueCapacity, "pubsub-listener") : null;
+    }
 
     /**
      * Defines the Spring Integration channel for incoming Pub/Sub messages.
      */
     @Bean
     public MessageChannel pubsubInputChannel() {
-        return new DirectChannel(); // A direct channel processes messages synchronously.
+        return new DirectChannel(); // Hands each message to the handler on the subscriber's callback thread.
     }
 
-    public BlockingQueue<String> getReceivedMessages() {
+    /**
+     * @return The received messages, to be acknowledged by whoever takes them once processed.
+     */
+    public BlockingQueue<PubSubReceivedMessage> getReceivedMessages() {
         return receivedMessages;
     }
 
+    /**
+     * @return The number of messages currently in the buffer.
+     */
+    public int getBufferDepth() {
+        return receivedMessages.size();
+    }
+
+    /**
+     * @return The largest number of messages the buffer has held at once.
+     */
+    public int getBufferHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Registers the buffer gauges; called by Spring Boot with the application's meter registry.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("pubsub.listener.buffer.depth", this, PubSubListener::getBufferDepth)
+                .description("Received Pub/Sub messages waiting in the listener buffer")
+                .tag("subscription", subscriptionName)
+                .register(registry);
+        Gauge.builder("pubsub.listener.buffer.high.water.mark", this, PubSubListener::getBufferHighWaterMark)
+                .description("Largest number of messages the listener buffer has held")
+                .tag("subscription", subscriptionName)
+                .register(registry);
+    }
+
     /**
      * Configures the inbound adapter to pull messages from Pub/Sub and route them to `pubsubInputChannel`.
      * Uses **manual acknowledgment mode** for explicit control over message acknowledgment.
@@ -54,22 +141,71 @@ public class PubSubListener {
     }
 
     /**
-     * Processes messages arriving at `pubsubInputChannel`. Extracts payload, logs, stores, and acknowledges the message.
+     * Processes messages arriving at `pubsubInputChannel`, directly or on the stripe of their ordering key.
+     * Extracts payload, logs, and stores the message, leaving its acknowledgement to the consumer.
      */
     @Bean
     @ServiceActivator(inputChannel = "pubsubInputChannel")
     // Binds this method to handle messages from 'pubsubInputChannel'.
     public MessageHandler receiveMessage() {
         return message -> {
-            String payloadMessage = new String((byte[]) message.getPayload());
-            System.out.printf("Message arrived! Payload: %s", payloadMessage);
-
-            // Retrieves the original Pub/Sub message to acknowledge it after processing.
+            // Retrieves the original Pub/Sub message, to be acknowledged after processing.
             BasicAcknowledgeablePubsubMessage originalMessage =
                     message.getHeaders().get(GcpPubSubHeaders.ORIGINAL_MESSAGE, BasicAcknowledgeablePubsubMessage.class);
 
-            receivedMessages.offer(payloadMessage); // Adds the message payload to a queue for consumption/testing.
-            originalMessage.ack(); // Acknowledges the message to Pub/Sub, preventing redelivery.
+            if (stripes == null) {
+                process(message, originalMessage);
+                return;
+            }
+            try {
+                // Waits for room when the stripe is full, which holds back the subscriber.
+                stripes.execute(orderingKey(originalMessage.getPubsubMessage()), () -> {
+                    try {
+                        process(message, originalMessage); // Decodes on the stripe, off the callback thread.
+                    } catch (RuntimeException e) { // No caller left to report to: asks for a redelivery instead.
+                        log.warn("Failed to process message {}", originalMessage.getPubsubMessage().getMessageId(), e);
+                        originalMessage.nack();
+                    }
+                });
+            } catch (RejectedExecutionException e) { // Shutting down: Pub/Sub redelivers the message.
+                originalMessage.nack();
+            }
         };
     }
-}
\ No newline at end of file
+
+    private String orderingKey(PubsubMessage pubsubMessage) {
+        if (!orderingAttribute.isEmpty()) {
+            String key = pubsubMessage.getAttributesOrDefault(orderingAttribute, "");
+            if (!key.isEmpty()) {
+                return key;
+            }
+        }
+        return pubsubMessage.getOrderingKey(); // Empty when published without one: any stripe will do.
+    }
+
+    private void process(Message<?> message, BasicAcknowledgeablePubsubMessage originalMessage) {
+        String payloadMessage = new String((byte[]) message.getPayload());
+        log.debug("Message arrived! Payload: {}", payloadMessage); // Formatted only when debug logging is enabled.
+
+        try {
+            // Waits for room; the consumer acknowledges the message once processed, preventing redelivery.
+            receivedMessages.put(new PubSubReceivedMessage(payloadMessage, originalMessage));
+        } catch (InterruptedException e) { // Shutting down: Pub/Sub redelivers the message.
+            Thread.currentThread().interrupt();
+            originalMessage.nack();
+            return;
+        }
+        highWaterMark.accumulateAndGet(receivedMessages.size(), Math::max);
+    }
+
+    /**
+     * Lets the messages already handed to the stripes finish; those still queued after a grace period are left
+     * unacknowledged, so Pub/Sub redelivers them.
+     */
+    @Override
+    public void destroy() {
+        if (stripes != null) {
+            stripes.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One stage of the {@link PubSubPublishPipeline}, applied to every outgoing payload before it is published.
+ * <p>
+ * Stages are Spring beans, applied in {@link org.springframework.core.annotation.Order} order. They work on
+ * the encoded bytes, so a payload is encoded once and never turned back into a {@link String}; stages should
+ * modify the buffer in place, and only allocate when a change cannot be made in place.
+ */
+@FunctionalInterface
+public interface PubSubPayloadTransformer {
+
+    /**
+     * Transforms a payload.
+     *
+     * @param payload The payload, between its position and limit. The stage owns it and may modify it,
+     *                unless it is read-only.
+     * @return The transformed payload: the same buffer, or a new one.
+     */
+    ByteBuffer transform(ByteBuffer payload);
+}
@@ -0,0 +1,48 @@
+package com.example;
+
+import com.google.protobuf.UnsafeByteOperations;
+import com.google.pubsub.v1.PubsubMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Turns outgoing payloads into Pub/Sub messages through a chain of {@link PubSubPayloadTransformer} stages.
+ * <p>
+ * A {@link String} payload is encoded to UTF-8 once; the stages then work on that buffer, and the result is
+ * wrapped into the message without being copied. The buffer therefore belongs to the message from then on:
+ * callers handing over a {@link ByteBuffer} must not modify it afterwards.
+ */
+public final class PubSubPublishPipeline {
+
+    private final PubSubPayloadTransformer[] stages; // An array, so the hot path does not allocate an iterator.
+
+    /**
+     * @param stages The stages, in the order they are applied.
+     */
+    public PubSubPublishPipeline(List<? extends PubSubPayloadTransformer> stages) {
+        this.stages = stages.toArray(PubSubPayloadTransformer[]::new);
+    }
+
+    /**
+     * @param message The payload text.
+     * @return The message carrying the transformed payload.
+     */
+    public PubsubMessage toPubsubMessage(String message) {
+        return toPubsubMessage(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param payload The payload, between its position and limit. Owned by the pipeline, then by the message.
+     * @return The message carrying the transformed payload.
+     */
+    public PubsubMessage toPubsubMessage(ByteBuffer payload) {
+        for (PubSubPayloadTransformer stage : stages) {
+            payload = stage.transform(payload);
+        }
+        return PubsubMessage.newBuilder()
+                .setData(UnsafeByteOperations.unsafeWrap(payload)) // Shares the buffer instead of copying it.
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example;
+
+/**
+ * The outcome of publishing one message.
+ *
+ * @param message   The message as it was given, before the service's transformation.
+ * @param messageId The ID assigned by Pub/Sub, or {@code null} if publishing failed.
+ * @param error     Why publishing failed, or {@code null} if it succeeded.
+ */
+public record PubSubPublishResult(String message, String messageId, Throwable error) {
+
+    /**
+     * @return Whether Pub/Sub accepted the message.
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A message received by the {@link PubSubListener}, still unacknowledged: its consumer acknowledges it once it
+ * has processed it, or negatively acknowledges it to have it redelivered. Until then, the subscriber keeps
+ * extending its ack deadline, up to {@code spring.cloud.gcp.pubsub.subscriber.max-ack-extension-period}.
+ *
+ * @param payload         The decoded message payload.
+ * @param originalMessage The delivered Pub/Sub message.
+ */
+public record PubSubReceivedMessage(String payload, BasicAcknowledgeablePubsubMessage originalMessage) {
+
+    /**
+     * Acknowledges the message, so Pub/Sub does not redeliver it. The subscriber sends acknowledgements in
+     * batches, so this does not wait for a round trip.
+     *
+     * @return A future completed once the acknowledgement is handed to the subscriber.
+     */
+    public CompletableFuture<Void> ack() {
+        return originalMessage.ack();
+    }
+
+    /**
+     * Negatively acknowledges the message, so Pub/Sub redelivers it right away.
+     *
+     * @return A future completed once the negative acknowledgement is handed to the subscriber.
+     */
+    public CompletableFuture<Void> nack() {
+        return originalMessage.nack();
+    }
+}
@@ -1,21 +1,54 @@
 package com.example;
 
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.pubsub.v1.PubsubMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Service for publishing messages to Google Cloud Pub/Sub.
+ * <p>
+ * Publishing is asynchronous: the underlying publisher groups messages into batches and sends a batch as
+ * soon as it reaches the element count, byte size or delay threshold configured under
+ * {@code spring.cloud.gcp.pubsub.publisher.batching}. Its flow control bounds the messages awaiting the
+ * broker; with {@code limit-exceeded-behavior=Block}, publishing callers wait once that bound is reached,
+ * instead of buffering without limit.
+ * <p>
+ * Payloads go through the {@link PubSubPublishPipeline} made of the {@link PubSubPayloadTransformer} beans,
+ * which converts them on their encoded bytes and hands those to the client without further copies. Published
+ * messages are logged at debug level, one in {@code pubsub.publisher.log-sample-rate}.
  */
 @Service
 public class PubSubService {
 
+    private static final Logger log = LoggerFactory.getLogger(PubSubService.class);
+
     @Autowired
     private final PubSubTemplate pubSubTemplate;
     private final String topicName = "example-topic"; // Defines the target Pub/Sub topic.
+    private final PubSubPublishPipeline pipeline;
+    private final long logSampleRate;
+    private final AtomicLong published = new AtomicLong(); // Only counted while debug logging is enabled.
 
-    public PubSubService(PubSubTemplate pubSubTemplate) {
+    public PubSubService(PubSubTemplate pubSubTemplate, ObjectProvider<PubSubPayloadTransformer> transformers,
+                         @Value("${pubsub.publisher.log-sample-rate:1000}") long logSampleRate) {
+        if (logSampleRate < 1) {
+            throw new IllegalArgumentException("Log sample rate must be positive");
+        }
         this.pubSubTemplate = pubSubTemplate;
+        this.pipeline = new PubSubPublishPipeline(transformers.orderedStream().toList());
+        this.logSampleRate = logSampleRate;
     }
 
     /**
@@ -23,10 +56,65 @@ public class PubSubService {
      * The message is converted to uppercase before publishing.
      *
      * @param message The message string to be published.
+     * @return A future completed with the Pub/Sub message ID, or exceptionally if publishing failed.
+     */
+    public CompletableFuture<String> publishMessage(String message) {
+        return publish(pipeline.toPubsubMessage(message));
+    }
+
+    /**
+     * Publishes an already encoded message to the configured Pub/Sub topic, after the same transformations
+     * as {@link #publishMessage(String)}.
+     *
+     * @param payload The message bytes, between the buffer's position and limit. The buffer is handed over
+     *                and must not be modified afterwards.
+     * @return A future completed with the Pub/Sub message ID, or exceptionally if publishing failed.
      */
-    public void publishMessage(String message) {
-        message = message.toUpperCase(); // Applies a simple transformation (e.g., business logic).
-        System.out.printf("Publishing message: '%s' to topic: '%s'%n", message, topicName);
-        pubSubTemplate.publish(topicName, message); // Delegates to the Spring Cloud GCP Pub/SubTemplate.
+    public CompletableFuture<String> publishMessage(ByteBuffer payload) {
+        return publish(pipeline.toPubsubMessage(payload));
+    }
+
+    /**
+     * Publishes many messages to the configured Pub/Sub topic, without waiting for any of them.
+     * Each message is converted to uppercase before publishing, like {@link #publishMessage(String)}.
+     * <p>
+     * The messages are handed to the publisher one after the other, which batches them; this call only
+     * blocks when the publisher's flow control is set to block and its limits are reached.
+     *
+     * @param messages The message strings to be published.
+     * @return A future completed once every message is either published or failed. It never completes
+     * exceptionally: failures are reported per message in the result.
+     * @see #publishMessage(String)
+     */
+    public CompletableFuture<PubSubBatchPublishResult> publishMessages(List<String> messages) {
+        List<CompletableFuture<PubSubPublishResult>> results = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            CompletableFuture<String> future;
+            try {
+                future = publishMessage(message);
+            } catch (RuntimeException e) { // For example, flow control limits reached with ThrowException.
+                future = CompletableFuture.failedFuture(e);
+            }
+            results.add(future.handle((messageId, error) -> new PubSubPublishResult(message, messageId,
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error)));
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            PubSubBatchPublishResult result =
+                    new PubSubBatchPublishResult(results.stream().map(CompletableFuture::join).toList());
+            List<PubSubPublishResult> failures = result.failures();
+            if (!failures.isEmpty()) {
+                log.warn("Failed to publish {} of {} messages to topic '{}'", failures.size(), messages.size(),
+                        topicName, failures.get(0).error());
+            }
+            return result;
+        });
+    }
+
+    private CompletableFuture<String> publish(PubsubMessage message) {
+        if (log.isDebugEnabled() && published.getAndIncrement() % logSampleRate == 0) {
+            log.debug("Publishing message of {} bytes to topic '{}' ({} published so far)",
+                    message.getData().size(), topicName, published.get());
+        }
+        return pubSubTemplate.publish(topicName, message); // Delegates to the Spring Cloud GCP Pub/SubTemplate.
     }
-}
\ No newline at end of file
+}
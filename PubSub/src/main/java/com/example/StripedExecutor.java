@@ -0,0 +1,114 @@
+package com.example;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on a fixed number of single-threaded stripes, so that tasks sharing a key run one after the
+ * other, in submission order, while tasks with different keys run in parallel.
+ * <p>
+ * A key always maps to the same stripe. Distinct keys may share a stripe, in which case they are serialized
+ * too, so the number of stripes should comfortably exceed the number of keys active at the same time.
+ * Tasks without a key are spread over the stripes in turn.
+ * <p>
+ * Each stripe queues at most a fixed number of tasks. Once its queue is full, {@link #execute} blocks the
+ * submitting thread until the stripe has room, so a slow stripe pushes back on its producer instead of
+ * buffering without limit.
+ */
+public class StripedExecutor implements AutoCloseable {
+
+    /**
+     * Blocks the submitting thread until the stripe's queue has room, rather than rejecting the task.
+     */
+    private static final RejectedExecutionHandler WAIT_FOR_ROOM = (task, executor) -> {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Striped executor is closed");
+        }
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in a stripe", e);
+        }
+    };
+
+    private final ExecutorService[] stripes;
+    private final AtomicInteger nextUnkeyed = new AtomicInteger(); // Round-robin position for tasks without a key.
+
+    /**
+     * @param stripeCount   The number of stripes, which is also the maximum number of tasks running at once.
+     * @param queueCapacity The number of tasks each stripe queues, besides the one it runs, before
+     *                      {@link #execute} blocks.
+     * @param threadName    The name prefix of the stripe threads.
+     */
+    public StripedExecutor(int stripeCount, int queueCapacity, String threadName) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Stripe queue capacity must be positive");
+        }
+        stripes = new ExecutorService[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), // Preallocated, like the listener buffer.
+                    Thread.ofPlatform().name(threadName + "-" + i).daemon().factory(),
+                    WAIT_FOR_ROOM);
+        }
+    }
+
+    /**
+     * Queues a task on the stripe of its key.
+     *
+     * @param key  The key whose tasks must run in order, or {@code null} or empty if the task can run anywhere.
+     * @param task The task.
+     * @throws RejectedExecutionException if the executor is closed, or the thread is interrupted while
+     *                                    waiting for room in the stripe.
+     */
+    public void execute(String key, Runnable task) {
+        stripes[stripeOf(key)].execute(task);
+    }
+
+    /**
+     * @return The number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    int stripeOf(String key) {
+        if (key == null || key.isEmpty()) {
+            return Math.floorMod(nextUnkeyed.getAndIncrement(), stripes.length);
+        }
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length); // Mixes the high bits into the low ones.
+    }
+
+    /**
+     * Stops accepting tasks and waits up to ten seconds for the queued ones to finish.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        try {
+            for (ExecutorService stripe : stripes) {
+                if (!stripe.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    stripe.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            for (ExecutorService stripe : stripes) {
+                stripe.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Converts payloads to upper case, the transformation {@link PubSubService} has always applied.
+ * <p>
+ * ASCII letters, by far the common case, are converted in place, byte by byte. A payload containing other
+ * UTF-8 characters is decoded and converted with {@link String#toUpperCase(Locale)} instead, as some of them
+ * change length in upper case. Both paths use {@link Locale#ROOT}, so the result does not depend on the
+ * default locale of the JVM.
+ */
+@Component
+@Order(0)
+public class UpperCasePayloadTransformer implements PubSubPayloadTransformer {
+
+    @Override
+    public ByteBuffer transform(ByteBuffer payload) {
+        if (payload.isReadOnly()) {
+            payload = ByteBuffer.allocate(payload.remaining()).put(payload.duplicate()).flip();
+        }
+        for (int i = payload.position(); i < payload.limit(); i++) {
+            byte b = payload.get(i);
+            if (b < 0) { // Part of a multi-byte UTF-8 sequence.
+                return upperCaseUtf8(payload);
+            }
+            if (b >= 'a' && b <= 'z') {
+                payload.put(i, (byte) (b - ('a' - 'A')));
+            }
+        }
+        return payload;
+    }
+
+    private static ByteBuffer upperCaseUtf8(ByteBuffer payload) {
+        String text = StandardCharsets.UTF_8.decode(payload.duplicate()).toString();
+        return ByteBuffer.wrap(text.toUpperCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+    }
+}
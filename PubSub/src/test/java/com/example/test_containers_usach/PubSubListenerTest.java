@@ -0,0 +1,208 @@
+package com.example.test_containers_usach;
+
+import com.example.PubSubListener;
+import com.example.PubSubReceivedMessage;
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.pubsub.v1.PubsubMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the concurrent dispatch, the bounded buffer and the deferred acknowledgements of
+ * {@link PubSubListener}, on mocked Pub/Sub messages handed straight to its message handler.
+ */
+class PubSubListenerTest {
+
+    private PubSubListener pubSubListener;
+
+    @AfterEach
+    void tearDown() {
+        pubSubListener.destroy(); // Stops the stripe threads.
+    }
+
+    @Test
+    void testConcurrentDispatch_keepsOrderPerOrderingKey() throws InterruptedException {
+        pubSubListener = new PubSubListener(4, "", 1000, 100);
+        MessageHandler handler = pubSubListener.receiveMessage();
+
+        for (int i = 0; i < 100; i++) {
+            for (String key : List.of("customer-1", "customer-2", "customer-3", "customer-4", "customer-5")) {
+                handler.handleMessage(message(key + ":" + i, pubsubMessage(key, Map.of())));
+            }
+        }
+
+        Map<String, List<Integer>> processed = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            PubSubReceivedMessage received = pubSubListener.getReceivedMessages().poll(10, TimeUnit.SECONDS);
+            assertThat(received).as("Message %d of 500", i).isNotNull();
+            String[] parts = received.payload().split(":");
+            processed.computeIfAbsent(parts[0], key -> new ArrayList<>()).add(Integer.parseInt(parts[1]));
+        }
+        assertThat(processed).hasSize(5);
+        processed.values().forEach(sequence -> assertThat(sequence).isSorted().hasSize(100));
+    }
+
+    @Test
+    void testConcurrentDispatch_slowKeyDoesNotBlockOtherKeys() throws InterruptedException {
+        pubSubListener = new PubSubListener(64, "customer", 1000, 100); // Keys "A" and "B" land on different stripes.
+        MessageHandler handler = pubSubListener.receiveMessage();
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Object> headers = Map.of(GcpPubSubHeaders.ORIGINAL_MESSAGE,
+                acknowledgeable(pubsubMessage("", Map.of("customer", "A"))));
+        Message<byte[]> slow = new GenericMessage<>("A:0".getBytes(StandardCharsets.UTF_8), headers) {
+            @Override
+            public byte[] getPayload() {
+                try {
+                    release.await(10, TimeUnit.SECONDS); // Holds the stripe of key "A" while decoding.
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getPayload();
+            }
+        };
+
+        handler.handleMessage(slow);
+        handler.handleMessage(message("A:1", pubsubMessage("", Map.of("customer", "A"))));
+        handler.handleMessage(message("B:0", pubsubMessage("", Map.of("customer", "B"))));
+
+        assertThat(pubSubListener.getReceivedMessages().poll(10, TimeUnit.SECONDS).payload()).isEqualTo("B:0");
+        assertThat(pubSubListener.getReceivedMessages().poll(200, TimeUnit.MILLISECONDS)).isNull(); // Waits on "A:0".
+
+        release.countDown();
+        assertThat(pubSubListener.getReceivedMessages().poll(10, TimeUnit.SECONDS).payload()).isEqualTo("A:0");
+        assertThat(pubSubListener.getReceivedMessages().poll(10, TimeUnit.SECONDS).payload()).isEqualTo("A:1");
+    }
+
+    @Test
+    void testConcurrentDispatch_fullStripeBlocksCallback() throws InterruptedException {
+        pubSubListener = new PubSubListener(2, "customer", 1000, 1); // One queued message per stripe.
+        MessageHandler handler = pubSubListener.receiveMessage();
+        CountDownLatch release = new CountDownLatch(1);
+        Map<String, Object> headers = Map.of(GcpPubSubHeaders.ORIGINAL_MESSAGE,
+                acknowledgeable(pubsubMessage("", Map.of("customer", "A"))));
+        Message<byte[]> slow = new GenericMessage<>("A:0".getBytes(StandardCharsets.UTF_8), headers) {
+            @Override
+            public byte[] getPayload() {
+                try {
+                    release.await(10, TimeUnit.SECONDS); // Holds the stripe of key "A" while decoding.
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getPayload();
+            }
+        };
+        handler.handleMessage(slow);
+        handler.handleMessage(message("A:1", pubsubMessage("", Map.of("customer", "A")))); // Fills the queue.
+
+        Thread callback = Thread.ofPlatform().start(() ->
+                handler.handleMessage(message("A:2", pubsubMessage("", Map.of("customer", "A")))));
+        callback.join(200);
+
+        assertThat(callback.isAlive()).isTrue(); // Waits for room in the stripe.
+
+        release.countDown();
+        callback.join(10_000);
+
+        assertThat(callback.isAlive()).isFalse();
+        for (String expected : List.of("A:0", "A:1", "A:2")) {
+            assertThat(pubSubListener.getReceivedMessages().poll(10, TimeUnit.SECONDS).payload()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void testConcurrentDispatch_failureNacksMessage() {
+        pubSubListener = new PubSubListener(2, "", 1000, 100);
+        BasicAcknowledgeablePubsubMessage failing = acknowledgeable(pubsubMessage("customer-1", Map.of()));
+        Message<String> undecodable = MessageBuilder.withPayload("not bytes") // Fails to decode on the stripe.
+                .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, failing)
+                .build();
+
+        pubSubListener.receiveMessage().handleMessage(undecodable);
+
+        verify(failing, timeout(10_000)).nack(); // Redelivered instead of lost.
+        verify(failing, never()).ack();
+    }
+
+    @Test
+    void testReceivedMessage_acknowledgedOnlyOnceProcessed() {
+        pubSubListener = new PubSubListener(1, "", 10, 100);
+        BasicAcknowledgeablePubsubMessage original = acknowledgeable(pubsubMessage("", Map.of()));
+        when(original.ack()).thenReturn(CompletableFuture.completedFuture(null));
+
+        pubSubListener.receiveMessage().handleMessage(message("payload", original));
+
+        verify(original, never()).ack(); // Buffered, not processed yet.
+        PubSubReceivedMessage received = pubSubListener.getReceivedMessages().poll();
+        assertThat(received.payload()).isEqualTo("payload");
+
+        assertThat(received.ack()).isCompleted();
+        verify(original).ack();
+        verify(original, never()).nack();
+    }
+
+    @Test
+    void testFullBuffer_waitsForRoom() throws InterruptedException {
+        pubSubListener = new PubSubListener(1, "", 2, 100);
+        MessageHandler handler = pubSubListener.receiveMessage();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        pubSubListener.bindTo(registry);
+        handler.handleMessage(message("first", pubsubMessage("", Map.of())));
+        handler.handleMessage(message("second", pubsubMessage("", Map.of())));
+        BasicAcknowledgeablePubsubMessage third = acknowledgeable(pubsubMessage("", Map.of()));
+
+        Thread callback = Thread.ofPlatform().start(() -> handler.handleMessage(message("third", third)));
+        callback.join(200);
+
+        assertThat(callback.isAlive()).isTrue(); // Waits for room in the buffer.
+        assertThat(registry.get("pubsub.listener.buffer.depth").gauge().value()).isEqualTo(2.0);
+
+        assertThat(pubSubListener.getReceivedMessages().poll().payload()).isEqualTo("first");
+        callback.join(10_000);
+
+        assertThat(callback.isAlive()).isFalse();
+        assertThat(pubSubListener.getReceivedMessages())
+                .extracting(PubSubReceivedMessage::payload)
+                .containsExactly("second", "third");
+        verify(third, never()).ack(); // Left to the consumer.
+        assertThat(pubSubListener.getBufferHighWaterMark()).isEqualTo(2);
+        assertThat(registry.get("pubsub.listener.buffer.high.water.mark").gauge().value()).isEqualTo(2.0);
+    }
+
+    private static PubsubMessage pubsubMessage(String orderingKey, Map<String, String> attributes) {
+        return PubsubMessage.newBuilder().setOrderingKey(orderingKey).putAllAttributes(attributes).build();
+    }
+
+    private static BasicAcknowledgeablePubsubMessage acknowledgeable(PubsubMessage pubsubMessage) {
+        BasicAcknowledgeablePubsubMessage acknowledgeable = mock(BasicAcknowledgeablePubsubMessage.class);
+        when(acknowledgeable.getPubsubMessage()).thenReturn(pubsubMessage);
+        return acknowledgeable;
+    }
+
+    private static Message<byte[]> message(String payload, PubsubMessage pubsubMessage) {
+        return message(payload, acknowledgeable(pubsubMessage));
+    }
+
+    private static Message<byte[]> message(String payload, BasicAcknowledgeablePubsubMessage original) {
+        return MessageBuilder.withPayload(payload.getBytes(StandardCharsets.UTF_8))
+                .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, original)
+                .build();
+    }
+}
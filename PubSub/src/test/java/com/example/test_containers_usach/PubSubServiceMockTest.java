@@ -1,10 +1,15 @@
 package com.example.test_containers_usach;
 
+import com.example.PubSubBatchPublishResult;
+import com.example.PubSubPublishResult;
 import com.example.PubSubService;
+import com.example.UpperCasePayloadTransformer;
 import com.google.cloud.spring.autoconfigure.core.GcpContextAutoConfiguration;
 import com.google.cloud.spring.autoconfigure.pubsub.GcpPubSubAutoConfiguration;
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
 import com.google.cloud.spring.pubsub.core.subscriber.PubSubSubscriberTemplate;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +21,13 @@ import org.springframework.test.context.ContextConfiguration;
 
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.*;
 
 /**
@@ -72,16 +84,84 @@ class PubSubServiceMockTest {
         pubSubService.publishMessage(message); // Call the service method.
 
         // Verifies that the publish method was called exactly once with the expected topic and transformed message.
-        verify(pubSubTemplate, times(1)).publish(TOPIC_NAME, expectedPublishedMessage);
+        verify(pubSubTemplate, times(1)).publish(TOPIC_NAME, pubsubMessage(expectedPublishedMessage));
         verifyNoMoreInteractions(pubSubTemplate); // Ensures no other methods were called on the template.
     }
 
+    /**
+     * Tests that bulk publishing transforms every message, hands them all to the template without waiting,
+     * and reports failures per message instead of failing the whole call.
+     */
+    @Test
+    void testPublishMessages_reportsFailuresPerMessage() {
+        IllegalStateException failure = new IllegalStateException("Publisher shut down");
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        when(pubSubTemplate.publish(TOPIC_NAME, pubsubMessage("FIRST"))).thenReturn(CompletableFuture.completedFuture("id-1"));
+        when(pubSubTemplate.publish(TOPIC_NAME, pubsubMessage("SECOND"))).thenReturn(CompletableFuture.failedFuture(failure));
+        when(pubSubTemplate.publish(TOPIC_NAME, pubsubMessage("THIRD"))).thenReturn(pending);
+
+        CompletableFuture<PubSubBatchPublishResult> future = pubSubService.publishMessages(List.of("first", "second", "third"));
+
+        verify(pubSubTemplate, times(3)).publish(eq(TOPIC_NAME), any(PubsubMessage.class)); // All handed over first.
+        assertThat(future).isNotDone();
+
+        pending.complete("id-3");
+
+        PubSubBatchPublishResult result = future.join();
+        assertThat(result.results())
+                .extracting(PubSubPublishResult::message, PubSubPublishResult::messageId, PubSubPublishResult::error)
+                .containsExactly(
+                        tuple("first", "id-1", null), // The messages as given, to be retried as such.
+                        tuple("second", null, failure),
+                        tuple("third", "id-3", null));
+        assertThat(result.successCount()).isEqualTo(2);
+        assertThat(result.isSuccessful()).isFalse();
+    }
+
+    /**
+     * Tests that a message rejected synchronously by the template, for example by flow control,
+     * is reported as failed without stopping the others.
+     */
+    @Test
+    void testPublishMessages_synchronousRejectionIsReportedPerMessage() {
+        RuntimeException rejection = new RuntimeException("Flow control limits exceeded");
+        when(pubSubTemplate.publish(TOPIC_NAME, pubsubMessage("FIRST"))).thenThrow(rejection);
+        when(pubSubTemplate.publish(TOPIC_NAME, pubsubMessage("SECOND"))).thenReturn(CompletableFuture.completedFuture("id-2"));
+
+        PubSubBatchPublishResult result = pubSubService.publishMessages(List.of("first", "second")).join();
+
+        assertThat(result.failures()).extracting(PubSubPublishResult::error).containsExactly(rejection);
+        assertThat(result.successCount()).isEqualTo(1);
+    }
+
+    /**
+     * Tests that byte payloads go through the same pipeline, and that text outside ASCII is converted like
+     * {@link String#toUpperCase}.
+     */
+    @Test
+    void testPublishMessage_bytePayloads() {
+        pubSubService.publishMessage(ByteBuffer.wrap("bytes".getBytes(StandardCharsets.UTF_8)));
+        pubSubService.publishMessage(ByteBuffer.wrap("bytes".getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer());
+        pubSubService.publishMessage("café straße");
+
+        verify(pubSubTemplate, times(2)).publish(TOPIC_NAME, pubsubMessage("BYTES"));
+        verify(pubSubTemplate).publish(TOPIC_NAME, pubsubMessage("CAFÉ STRASSE"));
+        verifyNoMoreInteractions(pubSubTemplate);
+    }
+
+    /**
+     * @return The message the service is expected to publish for the given (transformed) text.
+     */
+    private static PubsubMessage pubsubMessage(String data) {
+        return PubsubMessage.newBuilder().setData(ByteString.copyFromUtf8(data)).build();
+    }
+
     /**
      * Defines the minimal Spring context for this unit test.
-     * It only imports `PubSubService` as its dependencies (`PubSubTemplate`) are mocked.
+     * It only imports `PubSubService` and its uppercase stage, as its dependencies (`PubSubTemplate`) are mocked.
      */
     @Configuration
-    @Import({PubSubService.class}) // Imports the service under test.
+    @Import({PubSubService.class, UpperCasePayloadTransformer.class}) // Imports the service under test and its pipeline.
     static class TestConfig {
         // No additional beans are defined here; mocks handle the dependencies.
     }
@@ -0,0 +1,127 @@
+package com.example.benchmarks;
+
+import com.example.Product;
+import com.example.ProductCache;
+import com.example.ProductMetrics;
+import com.example.ProductRepository;
+import com.example.ProductService;
+import com.example.VirtualThreadConfiguration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Base JMH state for the {@link ProductService} benchmarks: starts a PostgreSQL database and a Spring
+ * context with the product persistence layer once per fork, and exposes its beans to the benchmarks.
+ * <p>
+ * The database is a Testcontainers-managed {@code postgres:16-alpine} container, unless
+ * {@code -Dbenchmark.postgres.url=jdbc:postgresql://...} (with {@code benchmark.postgres.username} and
+ * {@code benchmark.postgres.password}) points at an existing local instance. Either way the Flyway
+ * migrations are applied at startup, so the schema and indexes match production.
+ */
+@State(Scope.Benchmark)
+public abstract class ProductBenchmarkState {
+
+    protected ProductService productService;
+    protected ProductRepository productRepository;
+    protected ProductCache productCache;
+    protected JdbcTemplate jdbcTemplate;
+
+    private PostgreSQLContainer<?> postgresContainer;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        String url = System.getProperty("benchmark.postgres.url");
+        String username = System.getProperty("benchmark.postgres.username", "postgres");
+        String password = System.getProperty("benchmark.postgres.password", "postgres");
+        if (url == null) {
+            postgresContainer = new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withDatabaseName("benchdb").withUsername("benchuser").withPassword("benchpass");
+            postgresContainer.start();
+            url = postgresContainer.getJdbcUrl();
+            username = postgresContainer.getUsername();
+            password = postgresContainer.getPassword();
+        }
+        List<String> arguments = new ArrayList<>(List.of("--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + username,
+                "--spring.datasource.password=" + password,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn")); // Keeps the benchmark output readable.
+        arguments.addAll(extraArguments());
+        context = new SpringApplicationBuilder(ProductBenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(arguments.toArray(String[]::new));
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        productCache = context.getBean(ProductCache.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        productRepository.deleteAllInBatch(); // A reused local database may hold products from an earlier run.
+        load();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgresContainer != null) {
+            postgresContainer.stop();
+        }
+    }
+
+    /**
+     * @return Additional {@code --property=value} arguments for the Spring context, none by default.
+     */
+    protected List<String> extraArguments() {
+        return List.of();
+    }
+
+    /**
+     * Loads the products the benchmarks need, once the context is started.
+     */
+    protected abstract void load();
+
+    /**
+     * @param count The number of products.
+     * @return New products with distinct names and prices between 0 and 1000.
+     */
+    protected static List<Product> newProducts(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Product(null, "Benchmark " + i, (i * 7919L) % 100_000 / 100.0))
+                .toList();
+    }
+
+    /**
+     * The product persistence layer, bootstrapped like the PostgreSQL module's {@link com.example.ProductApplication},
+     * defaults included, but without its scheduled jobs, web endpoints or optional features other than the
+     * virtual-thread mode.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+    @EntityScan(basePackageClasses = Product.class)
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductCache.class, ProductMetrics.class, VirtualThreadConfiguration.class})
+    @PropertySource("classpath:postgresql.properties")
+    static class ProductBenchmarkApplication {
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.benchmarks;
+
+import com.example.Product;
+import com.example.ProductSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read benchmarks for {@link com.example.ProductService} at several table sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProductReadBenchmark extends ProductBenchmarkState {
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    private long[] ids;
+
+    @Override
+    protected void load() {
+        ids = productService.createProducts(newProducts(tableSize)).stream().mapToLong(Product::getId).toArray();
+    }
+
+    /**
+     * Looks up random products through the {@link com.example.ProductCache}, as callers do.
+     */
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return productService.getProductById(randomId());
+    }
+
+    /**
+     * Looks up random products with the cache entry evicted first, so every call reads the database.
+     */
+    @Benchmark
+    public Optional<Product> getProductByIdUncached() {
+        long id = randomId();
+        productCache.invalidate(id);
+        return productService.getProductById(id);
+    }
+
+    /**
+     * Loads the whole table, which grows linearly with {@link #tableSize}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Product> getAllProducts() {
+        return productService.getAllProducts();
+    }
+
+    /**
+     * Finds the products priced between 100 and 110, about 1% of the table, by loading the whole table and
+     * filtering in Java: the baseline for {@link #searchByPriceRange()}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Product> findAllAndFilterByPriceRange() {
+        return productService.getAllProducts().stream()
+                .filter(product -> product.getPrice() >= 100 && product.getPrice() <= 110)
+                .toList();
+    }
+
+    /**
+     * Finds the same products with the indexed price-range search.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS) // Same unit as its baseline, so the two read side by side.
+    public List<ProductSummary> searchByPriceRange() {
+        return productService.searchByPriceRange(100, 110, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the products whose name starts with {@code "Benchmark 99"} by loading the whole table and
+     * filtering in Java: the baseline for {@link #searchByNamePrefix()}.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Product> findAllAndFilterByNamePrefix() {
+        return productService.getAllProducts().stream()
+                .filter(product -> product.getName().startsWith("Benchmark 99"))
+                .toList();
+    }
+
+    /**
+     * Finds the same products with the indexed name-prefix search.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<ProductSummary> searchByNamePrefix() {
+        return productService.searchByNamePrefix("Benchmark 99", Integer.MAX_VALUE);
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
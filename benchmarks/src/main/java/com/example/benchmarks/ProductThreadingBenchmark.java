@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.ProductSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request throughput of {@link com.example.ProductService} in the two execution modes: a bounded
+ * pool of 200 platform threads, like Tomcat's default, with the plain HikariCP pool, against one virtual
+ * thread per request with {@code spring.threads.virtual.enabled=true}, where the pool is guarded by a
+ * {@link com.example.ConnectionPermitDataSource}.
+ * <p>
+ * Each invocation serves {@value #REQUESTS} concurrent requests. A request optionally waits
+ * {@link #remoteLatencyMs} first, standing in for a blocking call to another service in the same request,
+ * then runs a price range search against the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProductThreadingBenchmark extends ProductBenchmarkState {
+
+    private static final int REQUESTS = 2_000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"0", "20"})
+    public int remoteLatencyMs;
+
+    private ExecutorService executor;
+
+    @Override
+    protected List<String> extraArguments() {
+        return List.of("--spring.threads.virtual.enabled=" + threads.equals("virtual"));
+    }
+
+    @Override
+    protected void load() {
+        productService.createProducts(newProducts(10_000));
+        executor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopExecutor() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public int serveRequests() throws Exception {
+        List<Future<List<ProductSummary>>> responses = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(executor.submit(() -> {
+                if (remoteLatencyMs > 0) {
+                    Thread.sleep(remoteLatencyMs);
+                }
+                double minPrice = ThreadLocalRandom.current().nextInt(1000);
+                return productService.searchByPriceRange(minPrice, minPrice + 1, 10);
+            }));
+        }
+        int results = 0;
+        for (Future<List<ProductSummary>> response : responses) {
+            results += response.get().size();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import com.example.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write benchmarks for {@link com.example.ProductService}, each reported per product written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProductWriteBenchmark extends ProductBenchmarkState {
+
+    private static final int SEED_SIZE = 10_000;
+    private static final int BULK_SIZE = 1_000;
+
+    private long[] seedIds;
+    private long maxSeedId;
+
+    @Override
+    protected void load() {
+        seedIds = productService.createProducts(newProducts(SEED_SIZE)).stream().mapToLong(Product::getId).toArray();
+        maxSeedId = seedIds[seedIds.length - 1];
+    }
+
+    /**
+     * Drops the products inserted during the iteration, so every iteration starts from the same table.
+     */
+    @TearDown(Level.Iteration)
+    public void removeInsertedProducts() {
+        jdbcTemplate.update("DELETE FROM product WHERE id > ?", maxSeedId);
+    }
+
+    /**
+     * Inserts one product per transaction.
+     */
+    @Benchmark
+    public Product createProduct() {
+        return productService.createProduct(new Product(null, "Single", ThreadLocalRandom.current().nextDouble(1000)));
+    }
+
+    /**
+     * Inserts {@value #BULK_SIZE} products per call with JDBC batching.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<Product> createProducts() {
+        return productService.createProducts(newProducts(BULK_SIZE));
+    }
+
+    /**
+     * Loads and updates a random product.
+     */
+    @Benchmark
+    public Product updateProduct() {
+        long id = seedIds[ThreadLocalRandom.current().nextInt(seedIds.length)];
+        return productService.updateProduct(id, new Product(null, "Updated", ThreadLocalRandom.current().nextDouble(1000)));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.benchmarks;
+
+import com.example.PubSubListener;
+import com.example.PubSubReceivedMessage;
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.PubsubMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link PubSubListener} message handler on messages delivered by an in-process stand-in
+ * for the broker, which acknowledges immediately, so the handler's own cost is measured without network
+ * round trips. See {@link PubSubPublishBenchmark} for a benchmark against the emulator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PubSubListenerBenchmark {
+
+    private PubSubListener pubSubListener;
+    private MessageHandler handler;
+    private Message<byte[]> message;
+
+    @Setup(Level.Trial)
+    public void createHandler() {
+        pubSubListener = new PubSubListener(1, "", 1, 1); // Direct dispatch, into a buffer drained after each message.
+        handler = pubSubListener.receiveMessage();
+        byte[] payload = "Benchmark message".getBytes(StandardCharsets.UTF_8);
+        message = MessageBuilder.withPayload(payload)
+                .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, new StandInMessage(payload))
+                .build();
+    }
+
+    @Benchmark
+    public String handleMessage() {
+        handler.handleMessage(message);
+        PubSubReceivedMessage received = pubSubListener.getReceivedMessages().poll(); // Keeps the queue from growing.
+        received.ack(); // Processed: acknowledged as a consumer would.
+        return received.payload();
+    }
+
+    /**
+     * A delivered message, as the subscriber hands it to the inbound channel adapter.
+     */
+    private record StandInMessage(byte[] payload) implements BasicAcknowledgeablePubsubMessage {
+
+        private static final ProjectSubscriptionName SUBSCRIPTION =
+                ProjectSubscriptionName.of("benchmark-project", "example-subscription");
+
+        @Override
+        public ProjectSubscriptionName getProjectSubscriptionName() {
+            return SUBSCRIPTION;
+        }
+
+        @Override
+        public PubsubMessage getPubsubMessage() {
+            return PubsubMessage.newBuilder().setData(ByteString.copyFrom(payload)).build();
+        }
+
+        @Override
+        public CompletableFuture<Void> ack() {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> nack() {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
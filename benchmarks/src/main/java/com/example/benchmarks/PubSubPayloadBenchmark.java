@@ -0,0 +1,65 @@
+package com.example.benchmarks;
+
+import com.example.PubSubPublishPipeline;
+import com.example.UpperCasePayloadTransformer;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of turning a text message into a Pub/Sub message on the publish hot path, without any
+ * network: the {@link PubSubPublishPipeline} against the former path, which upper-cased the {@link String},
+ * formatted a log line and let the template encode the result.
+ * <p>
+ * Meant to be run with the GC profiler, whose {@code gc.alloc.rate.norm} is the number of bytes allocated
+ * per message: {@code -Djmh.args="PubSubPayloadBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PubSubPayloadBenchmark {
+
+    @Param({"32", "1024"})
+    private int messageLength;
+
+    private String message;
+    private PubSubPublishPipeline pipeline;
+
+    @Setup(Level.Trial)
+    public void createMessage() {
+        message = "benchmark message ".repeat(messageLength / 18 + 1).substring(0, messageLength);
+        pipeline = new PubSubPublishPipeline(List.of(new UpperCasePayloadTransformer()));
+    }
+
+    @Benchmark
+    public PubsubMessage pipeline() {
+        return pipeline.toPubsubMessage(message);
+    }
+
+    @Benchmark
+    public PubsubMessage formerStringPath(Blackhole blackhole) {
+        String upperCased = message.toUpperCase();
+        blackhole.consume(String.format("Publishing message: '%s' to topic: '%s'%n", upperCased, "example-topic"));
+        return PubsubMessage.newBuilder()
+                .setData(ByteString.copyFromUtf8(upperCased)) // What the template's default converter does.
+                .build();
+    }
+}
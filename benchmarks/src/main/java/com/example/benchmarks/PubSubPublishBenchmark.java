@@ -0,0 +1,129 @@
+package com.example.benchmarks;
+
+import com.example.PubSubService;
+import com.example.UpperCasePayloadTransformer;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.cloud.spring.pubsub.PubSubAdmin;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.testcontainers.containers.PubSubEmulatorContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Benchmarks {@link PubSubService#publishMessage} and {@link PubSubService#publishMessages} against a
+ * Testcontainers-managed Pub/Sub emulator.
+ * <p>
+ * Publishing is asynchronous, so the publisher's flow control is bounded and set to block: once
+ * {@value #MAX_OUTSTANDING_MESSAGES} messages await the broker, callers wait, and the measured rate is
+ * the sustained end-to-end rate rather than the rate of filling an unbounded buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PubSubPublishBenchmark {
+
+    private static final String PROJECT_ID = "benchmark-project";
+    private static final String TOPIC_NAME = "example-topic"; // The topic PubSubService publishes to.
+    private static final int MAX_OUTSTANDING_MESSAGES = 10_000;
+    private static final int BULK_SIZE = 1000;
+    private static final List<String> BULK_MESSAGES =
+            IntStream.range(0, BULK_SIZE).mapToObj(i -> "Benchmark message " + i).toList();
+
+    private PubSubEmulatorContainer pubsubEmulator;
+    private ConfigurableApplicationContext context;
+    private PubSubService pubSubService;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        pubsubEmulator = new PubSubEmulatorContainer(
+                DockerImageName.parse("gcr.io/google.com/cloudsdktool/cloud-sdk:388.0.0-emulators"));
+        pubsubEmulator.start();
+        context = new SpringApplicationBuilder(PubSubBenchmarkApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.cloud.gcp.project-id=" + PROJECT_ID,
+                        "--spring.cloud.gcp.pubsub.project-id=" + PROJECT_ID,
+                        "--spring.cloud.gcp.pubsub.emulator-host=" + pubsubEmulator.getEmulatorEndpoint(),
+                        "--spring.cloud.gcp.pubsub.publisher.batching.flow-control.max-outstanding-element-count="
+                                + MAX_OUTSTANDING_MESSAGES,
+                        "--spring.cloud.gcp.pubsub.publisher.batching.flow-control.limit-exceeded-behavior=Block",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn");
+        context.getBean(PubSubAdmin.class).createTopic(TOPIC_NAME);
+        pubSubService = context.getBean(PubSubService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        if (context != null) {
+            context.close();
+        }
+        if (pubsubEmulator != null) {
+            pubsubEmulator.stop();
+        }
+    }
+
+    @Benchmark
+    public void publishMessage() {
+        pubSubService.publishMessage("Benchmark message");
+    }
+
+    /**
+     * Publishes {@value #BULK_SIZE} messages and waits for all acknowledgements, so each operation is one
+     * message delivered to the broker.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public Object publishMessages() {
+        return pubSubService.publishMessages(BULK_MESSAGES).join();
+    }
+
+    /**
+     * Only the publishing side of the PubSub module: no listener and no database. Reads the module defaults
+     * explicitly, batching settings included, since the benchmark classpath holds no application.properties.
+     */
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = {
+            DataSourceAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            R2dbcAutoConfiguration.class
+    })
+    @Import({PubSubService.class, UpperCasePayloadTransformer.class})
+    @PropertySource("classpath:pubsub.properties")
+    static class PubSubBenchmarkApplication {
+
+        @Bean
+        CredentialsProvider googleCredentials() {
+            return NoCredentialsProvider.create(); // The emulator accepts unauthenticated calls.
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.test_containers_usach;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.TestcontainersConfiguration;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An isolated PostgreSQL database for one integration test class, cloned from a pre-migrated template.
+ * <p>
+ * All test classes share one {@code postgres:16-alpine} container, started on first use and kept for the
+ * rest of the JVM. With {@code testcontainers.reuse.enable=true} in {@code ~/.testcontainers.properties},
+ * the container even survives across runs. The Flyway migrations are applied once to a template
+ * database, and {@link #create()} clones it with {@code CREATE DATABASE ... TEMPLATE}, a file-level copy
+ * that takes milliseconds, so every test class starts from an empty, fully migrated schema without
+ * starting a container or replaying migrations.
+ * <p>
+ * Typical use, in the {@code ApplicationContextInitializer} of a test class:
+ * <pre>{@code
+ * static final PostgresTestDatabase postgresDatabase = PostgresTestDatabase.create();
+ * ...
+ * TestPropertyValues.of("spring.datasource.url=" + postgresDatabase.getJdbcUrl(), ...)
+ * }</pre>
+ */
+public final class PostgresTestDatabase {
+
+    private static final String TEMPLATE_DATABASE = "product_template";
+    private static final String DATABASE_PREFIX = "test_" + ProcessHandle.current().pid() + "_"; // Tells runs apart.
+    private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+    private static final List<String> CREATED_DATABASES = new ArrayList<>();
+
+    private static PostgreSQLContainer<?> server;
+
+    private final String databaseName;
+
+    private PostgresTestDatabase(String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * Clones the migrated template into a new database.
+     *
+     * @return The new database.
+     */
+    public static synchronized PostgresTestDatabase create() {
+        PostgreSQLContainer<?> container = server();
+        String databaseName = DATABASE_PREFIX + DATABASE_COUNT.incrementAndGet();
+        // Fails if anything is connected to the template, which only happens while it is being migrated.
+        execute(container, "CREATE DATABASE " + databaseName + " TEMPLATE " + TEMPLATE_DATABASE);
+        CREATED_DATABASES.add(databaseName);
+        return new PostgresTestDatabase(databaseName);
+    }
+
+    /**
+     * @return The shared PostgreSQL container, started and with a migrated template on first call.
+     */
+    public static synchronized PostgreSQLContainer<?> server() {
+        if (server == null) {
+            PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:16-alpine")
+                    .withUsername("testuser").withPassword("testpass")
+                    // Durability is useless for throwaway data; every cached test context also keeps a pool open.
+                    .withCommand("postgres", "-c", "fsync=off", "-c", "synchronous_commit=off",
+                            "-c", "full_page_writes=off", "-c", "max_connections=500")
+                    .withReuse(true);
+            container.start();
+            dropDatabasesOfEndedRuns(container);
+            migrateTemplate(container);
+            if (TestcontainersConfiguration.getInstance().environmentSupportsReuse()) {
+                // Otherwise the container is removed at exit anyway.
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> dropCreatedDatabases(container)));
+            }
+            server = container;
+        }
+        return server;
+    }
+
+    public String getJdbcUrl() {
+        return "jdbc:postgresql://" + getHost() + ":" + getPort() + "/" + databaseName;
+    }
+
+    public String getHost() {
+        return server.getHost();
+    }
+
+    public int getPort() {
+        return server.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT);
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public String getUsername() {
+        return server.getUsername();
+    }
+
+    public String getPassword() {
+        return server.getPassword();
+    }
+
+    public String getDriverClassName() {
+        return server.getDriverClassName();
+    }
+
+    /**
+     * Applies the migrations of {@code classpath:db/migration} to the template. On a reused container the
+     * template is already there and only new migrations run; if an applied migration was edited since,
+     * the template is rebuilt from scratch.
+     */
+    private static void migrateTemplate(PostgreSQLContainer<?> container) {
+        if (!exists(container, TEMPLATE_DATABASE)) {
+            execute(container, "CREATE DATABASE " + TEMPLATE_DATABASE);
+        }
+        String templateUrl = "jdbc:postgresql://" + container.getHost() + ":"
+                + container.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + TEMPLATE_DATABASE;
+        Flyway flyway = Flyway.configure()
+                .dataSource(templateUrl, container.getUsername(), container.getPassword())
+                .load();
+        try {
+            flyway.migrate();
+        } catch (FlywayException e) {
+            execute(container, "DROP DATABASE " + TEMPLATE_DATABASE + " WITH (FORCE)");
+            execute(container, "CREATE DATABASE " + TEMPLATE_DATABASE);
+            flyway.migrate();
+        }
+    }
+
+    /**
+     * Drops the databases left on a reused container by test runs that ended without cleaning up.
+     */
+    private static void dropDatabasesOfEndedRuns(PostgreSQLContainer<?> container) {
+        List<String> stale = new ArrayList<>();
+        try (Connection connection = connect(container);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT datname FROM pg_database WHERE datname LIKE 'test\\_%'")) {
+            while (resultSet.next()) {
+                String name = resultSet.getString(1);
+                String[] parts = name.split("_");
+                if (parts.length == 3 && ProcessHandle.of(Long.parseLong(parts[1])).isEmpty()) {
+                    stale.add(name);
+                }
+            }
+        } catch (SQLException | NumberFormatException e) {
+            return; // Only housekeeping.
+        }
+        stale.forEach(name -> execute(container, "DROP DATABASE IF EXISTS " + name + " WITH (FORCE)"));
+    }
+
+    private static synchronized void dropCreatedDatabases(PostgreSQLContainer<?> container) {
+        for (String name : CREATED_DATABASES) {
+            try {
+                execute(container, "DROP DATABASE IF EXISTS " + name + " WITH (FORCE)");
+            } catch (IllegalStateException e) {
+                // Dropped with the next run's housekeeping instead.
+            }
+        }
+    }
+
+    private static boolean exists(PostgreSQLContainer<?> container, String databaseName) {
+        try (Connection connection = connect(container);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT 1 FROM pg_database WHERE datname = '" + databaseName + "'")) {
+            return resultSet.next();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to look up database " + databaseName, e);
+        }
+    }
+
+    private static void execute(PostgreSQLContainer<?> container, String sql) {
+        try (Connection connection = connect(container);
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to execute: " + sql, e);
+        }
+    }
+
+    /**
+     * Connects to the container's own database, as databases cannot be created or dropped from within themselves.
+     */
+    private static Connection connect(PostgreSQLContainer<?> container) throws SQLException {
+        return DriverManager.getConnection(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.test_containers_usach;
+
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.rpc.AlreadyExistsException;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.api.gax.rpc.NotFoundException;
+import com.google.cloud.pubsub.v1.SubscriptionAdminClient;
+import com.google.cloud.pubsub.v1.SubscriptionAdminSettings;
+import com.google.cloud.pubsub.v1.TopicAdminClient;
+import com.google.cloud.pubsub.v1.TopicAdminSettings;
+import com.google.pubsub.v1.ProjectSubscriptionName;
+import com.google.pubsub.v1.ProjectTopicName;
+import com.google.pubsub.v1.PushConfig;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.testcontainers.containers.PubSubEmulatorContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Pub/Sub emulator shared by all integration test classes of the JVM.
+ * <p>
+ * The container is started on first use and, with {@code testcontainers.reuse.enable=true} in
+ * {@code ~/.testcontainers.properties}, reused across runs. Topics and subscriptions are provisioned
+ * once per JVM with {@link #provision}, before the Spring context that subscribes to them starts.
+ */
+public final class PubSubTestEmulator {
+
+    private static final Set<String> PROVISIONED = new HashSet<>();
+
+    private static PubSubEmulatorContainer emulator;
+
+    private PubSubTestEmulator() {
+    }
+
+    /**
+     * @return The emulator's {@code host:port}, for {@code spring.cloud.gcp.pubsub.emulator-host}.
+     */
+    public static String getEmulatorEndpoint() {
+        return emulator().getEmulatorEndpoint();
+    }
+
+    /**
+     * Creates a topic and a subscription to it, once per JVM. On a reused emulator, the subscription is
+     * recreated, so messages left over by an earlier run are not delivered to this one.
+     *
+     * @param projectId        The project the emulator should host them in.
+     * @param topicName        The topic to create, unless it exists.
+     * @param subscriptionName The subscription to (re)create.
+     */
+    public static synchronized void provision(String projectId, String topicName, String subscriptionName) {
+        if (!PROVISIONED.add(projectId + "/" + topicName + "/" + subscriptionName)) {
+            return;
+        }
+        ManagedChannel channel = ManagedChannelBuilder.forTarget("dns:///" + getEmulatorEndpoint())
+                .usePlaintext() // The emulator uses unencrypted communication.
+                .build();
+        FixedTransportChannelProvider channelProvider = FixedTransportChannelProvider.create(GrpcTransportChannel.create(channel));
+        try (TopicAdminClient topicAdminClient = TopicAdminClient.create(TopicAdminSettings.newBuilder()
+                .setTransportChannelProvider(channelProvider)
+                .setCredentialsProvider(NoCredentialsProvider.create())
+                .build());
+             SubscriptionAdminClient subscriptionAdminClient = SubscriptionAdminClient.create(SubscriptionAdminSettings.newBuilder()
+                     .setTransportChannelProvider(channelProvider)
+                     .setCredentialsProvider(NoCredentialsProvider.create())
+                     .build())) {
+            ProjectTopicName topic = ProjectTopicName.of(projectId, topicName);
+            try {
+                topicAdminClient.createTopic(topic);
+            } catch (AlreadyExistsException e) {
+                // Created by an earlier run.
+            }
+            ProjectSubscriptionName subscription = ProjectSubscriptionName.of(projectId, subscriptionName);
+            try {
+                subscriptionAdminClient.deleteSubscription(subscription); // Drops its backlog.
+            } catch (NotFoundException e) {
+                // First run.
+            }
+            subscriptionAdminClient.createSubscription(subscription, topic, PushConfig.getDefaultInstance(), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to provision " + topicName + " on the Pub/Sub emulator", e);
+        } finally {
+            channel.shutdown();
+            try {
+                channel.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static synchronized PubSubEmulatorContainer emulator() {
+        if (emulator == null) {
+            PubSubEmulatorContainer container = new PubSubEmulatorContainer(
+                    DockerImageName.parse("gcr.io/google.com/cloudsdktool/cloud-sdk:388.0.0-emulators"))
+                    .withReuse(true);
+            container.start();
+            emulator = container;
+        }
+        return emulator;
+    }
+}